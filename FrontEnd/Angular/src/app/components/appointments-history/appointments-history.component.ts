@@ -31,6 +31,8 @@ export class AppointmentsHistoryComponent implements OnInit {
   filteredAppointments = signal<AppointmentResponseDto[]>([]);
   searchQuery = signal('');
   loading = signal(false);
+  // Cursor de la siguiente página del backend (null si ya se cargó todo)
+  nextCursor = signal<string | null>(null);
   notification = signal<{ tipo: 'success' | 'error' | 'info'; mensaje: string } | null>(null);
 
   // Signals para la paginación
@@ -58,10 +60,17 @@ export class AppointmentsHistoryComponent implements OnInit {
   }
 
   async loadAllAppointments(): Promise<void> {
+      this.allAppointments.set([]);
+      this.nextCursor.set(null);
+      await this.loadMoreAppointments();
+  }
+
+  // Carga la página siguiente del backend y la agrega a la lista (el backend ya devuelve los turnos ordenados)
+  async loadMoreAppointments(): Promise<void> {
       this.loading.set(true);
       try {
-          const data = await this.professionalService.getTurnosFromBackend();
-          const normalizedData = data.map(app => {
+          const page = await this.professionalService.getTurnosFromBackend(this.nextCursor());
+          const normalizedData = page.items.map(app => {
               let normalizedFecha = app.fecha;
               if (normalizedFecha && normalizedFecha.includes('/')) {
                   const parts = normalizedFecha.split('/');
@@ -78,15 +87,10 @@ export class AppointmentsHistoryComponent implements OnInit {
               return displayStatus === 'Realizado' || displayStatus === 'Cancelado';
           });
 
-          const sortedAppointments = relevantAppointments.sort((a, b) => {
-              const dateTimeA = new Date(`${a.fecha}T${a.hora}`);
-              const dateTimeB = new Date(`${b.fecha}T${b.hora}`);
-              return dateTimeB.getTime() - dateTimeA.getTime();
-          });
-
-          this.allAppointments.set(sortedAppointments);
-          this.applyFilter();
-          console.log('[TurnosHistoryComponent] All relevant appointments loaded:', this.allAppointments());
+          this.allAppointments.update(current => [...current, ...relevantAppointments]);
+          this.nextCursor.set(page.nextCursor);
+          this.applyFilter(false);
+          console.log('[TurnosHistoryComponent] Relevant appointments loaded:', this.allAppointments());
       } catch (error) {
           console.error('Error al cargar todos los turnos:', error);
           this.showNotification('error', 'Error al cargar el historial de turnos.');
@@ -97,7 +101,7 @@ export class AppointmentsHistoryComponent implements OnInit {
       }
   }
 
-  applyFilter(): void {
+  applyFilter(resetPage: boolean = true): void {
       const query = this.searchQuery().toLowerCase().trim();
       if (!query) {
           this.filteredAppointments.set(this.allAppointments());
@@ -116,11 +120,17 @@ export class AppointmentsHistoryComponent implements OnInit {
           this.filteredAppointments.set(filtered);
       }
       // Cuando el filtro se aplica, siempre volver a la primera página
-      this.currentPage.set(1);
+      if (resetPage) {
+          this.currentPage.set(1);
+      }
   }
   
   // Métodos para cambiar de página
-  nextPage(): void {
+  async nextPage(): Promise<void> {
+      // Si se llegó a la última página cargada y el backend tiene más turnos, se pide la siguiente
+      if (this.currentPage() >= this.totalPages() && this.nextCursor()) {
+          await this.loadMoreAppointments();
+      }
       if (this.currentPage() < this.totalPages()) {
           this.currentPage.update(page => page + 1);
       }
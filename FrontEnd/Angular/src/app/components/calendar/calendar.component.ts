@@ -6,8 +6,11 @@ import {
   computed,
   Input, // ¡Importa Input!
   effect, // ¡Importa effect!
+  inject,
 } from '@angular/core';
 import { CommonModule } from '@angular/common';
+import { TurnosService } from '../../services/turnos.service';
+import { AppointmentDaySummaryDto } from '../../interfaces/AppointmentDaySummaryDto';
 
 @Component({
   selector: 'app-calendar',
@@ -23,6 +26,11 @@ export class CalendarComponent {
   @Input() showToggle: boolean = true;
   @Input() allowAnyDate: boolean = false; // Este es el flag que controla la restricción.
 
+  private turnosService = inject(TurnosService);
+
+  // Mes cuyo resumen se pidió por última vez (descarta respuestas de meses ya abandonados)
+  private resumenSolicitado = '';
+
   // Signals para estado reactivo
   currentDate = signal(new Date());
   selectedDate = signal<Date | null>(null);
@@ -96,6 +104,7 @@ export class CalendarComponent {
       const dateToShow = this.selectedDate() || new Date();
       this.currentDate.set(new Date(dateToShow.getFullYear(), dateToShow.getMonth(), 1));
       this.renderCalendar();
+      this.cargarResumenDelMes();
     }
     this.isOpen.update((state) => !state);
   }
@@ -105,6 +114,7 @@ export class CalendarComponent {
     newDate.setMonth(newDate.getMonth() + direction);
     this.currentDate.set(newDate);
     this.renderCalendar();
+    this.cargarResumenDelMes();
   }
 
   selectDay(day: any) {
@@ -217,6 +227,43 @@ export class CalendarComponent {
     this.days.set(daysArray);
   }
 
+  // Marca los días del mes visible que tienen turnos, con una sola llamada a /appointments/summary
+  // en lugar de una consulta por día.
+  private async cargarResumenDelMes() {
+    const date = this.currentDate();
+    const from = new Date(date.getFullYear(), date.getMonth(), 1);
+    const to = new Date(date.getFullYear(), date.getMonth() + 1, 0);
+    const mes = this.turnosService.formatearFecha(from);
+    this.resumenSolicitado = mes;
+
+    let resumen: AppointmentDaySummaryDto[];
+    try {
+      resumen = await this.turnosService.getResumenPorDia(from, to);
+    } catch (err) {
+      console.error('[CalendarComponent] Error al obtener el resumen del mes:', err);
+      return;
+    }
+    if (this.resumenSolicitado !== mes) {
+      return; // el usuario ya cambió de mes
+    }
+
+    const totalPorDia = new Map<number, number>();
+    resumen.forEach((dia) => totalPorDia.set(Number(dia.fecha.substring(8, 10)), dia.total));
+
+    this.days.update((days) =>
+      days.map((d) => {
+        const total = d.class.includes('otro-mes') ? undefined : totalPorDia.get(d.dayNumber);
+        return {
+          ...d,
+          turnos: total ?? 0,
+          class: total
+            ? `${d.class.replace(' con-turnos', '')} con-turnos`
+            : d.class.replace(' con-turnos', ''),
+        };
+      })
+    );
+  }
+
   private createDay(
     dayNumber: number,
     extraClass: string,
@@ -228,6 +275,7 @@ export class CalendarComponent {
       class: `dia ${extraClass}`.trim(),
       disabled,
       selectable,
+      turnos: 0,
     };
   }
 
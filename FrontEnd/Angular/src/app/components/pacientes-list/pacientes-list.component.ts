@@ -10,7 +10,7 @@ import { PatientObservation } from '../../interfaces/PatientObservation'; // Ase
 import { AppointmentRequestDto } from '../../interfaces/AppointmentRequestDto'; // Asegúrate de que esta ruta sea correcta
 import { AppointmentResponseDto } from '../../interfaces/AppointmentResponseDto'; // Asegúrate de que esta ruta sea correcta
 import {TurnosService } from '../../services/turnos.service'; // Asegúrate de que esta ruta sea correcta y que Turno se exporte desde turnos.service.ts o su propia interfaz
-import { Subject, takeUntil } from 'rxjs';
+import { Subject, catchError, debounceTime, distinctUntilChanged, switchMap, of, takeUntil } from 'rxjs';
 import { HttpErrorResponse } from '@angular/common/http';
 import { Turno } from '../../interfaces/Turno';
 import { AppointmentPatientDto } from '../../interfaces/AppointmentPatientDto';
@@ -47,6 +47,12 @@ export class PatientsListComponent implements OnInit, OnDestroy {
 
   // Signal for search term
   searchTerm = signal('');
+  private searchInput$ = new Subject<string>(); // Términos de búsqueda (se consultan al backend con debounce)
+
+  // Paginación del listado (la hace el backend)
+  currentPage = signal(0);
+  totalPages = signal(0);
+  readonly pageSize = 20;
 
   // --- Signals for Assign Appointment Modal ---
   showAssignAppointmentModal = signal(false);
@@ -74,6 +80,29 @@ export class PatientsListComponent implements OnInit, OnDestroy {
 
   ngOnInit() {
     this.loadPatients();
+    // Búsqueda en el servidor: solo se consulta el último término escrito
+    this.searchInput$
+      .pipe(
+        debounceTime(200),
+        distinctUntilChanged(),
+        switchMap(term => !term ? of(null) : this.patientService.searchPatients(term).pipe(
+          catchError(err => {
+            // un error no corta la suscripción: se informa y se sigue escuchando
+            console.error('Error al buscar pacientes', err);
+            this.notificacion.set({ tipo: 'error', mensaje: 'Error al buscar pacientes.' });
+            return of([]);
+          })
+        )),
+        takeUntil(this.destroy$)
+      )
+      .subscribe(results => {
+        if (results === null) {
+          this.loadPatients();
+          return;
+        }
+        this.patients.set(results);
+        this.filteredPatients.set(results);
+      });
     // Suscribirse a las notificaciones del TurnosService
     this.turnosService.notificaciones
       .pipe(takeUntil(this.destroy$))
@@ -92,12 +121,10 @@ export class PatientsListComponent implements OnInit, OnDestroy {
 
   async loadPatients() {
     try {
-      const data = await this.patientService.getPatients();
-      console.log('DEBUG: Raw data from getPatients() backend:', data);
-      this.patients.set(data);
-      this.filterPatients();
-      console.log('DEBUG: Patients signal after update:', this.patients());
-      console.log('DEBUG: FilteredPatients signal after update:', this.filteredPatients());
+      const page = await this.patientService.getPatientsPage(this.currentPage(), this.pageSize);
+      this.patients.set(page.items);
+      this.filteredPatients.set(page.items);
+      this.totalPages.set(page.totalPages);
     } catch (err: any) {
       console.error('Error al cargar pacientes', err);
       this.notificacion.set({ tipo: 'error', mensaje: 'Error al cargar la lista de pacientes.' });
@@ -148,22 +175,23 @@ export class PatientsListComponent implements OnInit, OnDestroy {
 
   onSearch(event: Event) {
     const input = event.target as HTMLInputElement;
-    const term = input.value.toLowerCase();
+    const term = input.value.trim();
     this.searchTerm.set(term);
-    this.filterPatients();
+    this.searchInput$.next(term);
   }
 
-  private filterPatients() {
-    const term = this.searchTerm().toLowerCase();
-    const allPatients = this.patients();
-    const filtered = allPatients.filter(patient => {
-      const firstNameMatch = patient.firstName?.toLowerCase().includes(term);
-      const lastNameMatch = patient.lastName?.toLowerCase().includes(term);
-      const emailMatch = patient.email?.toLowerCase().includes(term);
-      const phoneMatch = patient.phoneNumber?.toString().includes(term);
-      return firstNameMatch || lastNameMatch || emailMatch || phoneMatch;
-    });
-    this.filteredPatients.set(filtered);
+  previousPage() {
+    if (this.currentPage() > 0) {
+      this.currentPage.update(page => page - 1);
+      this.loadPatients();
+    }
+  }
+
+  nextPage() {
+    if (this.currentPage() < this.totalPages() - 1) {
+      this.currentPage.update(page => page + 1);
+      this.loadPatients();
+    }
   }
 
 
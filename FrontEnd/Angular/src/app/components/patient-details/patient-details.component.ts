@@ -43,6 +43,8 @@ export class PatientDetailsComponent implements OnInit {
 
   // --- Señales para el Historial de Turnos ---
   appointments = signal<AppointmentResponseDto[]>([]);
+  // Cursor de la siguiente página del historial (null si ya se cargó todo)
+  appointmentsCursor = signal<string | null>(null);
 
   // --- Señales para el Modal de Notas de Sesión ---
   showNotesModal = signal(false);
@@ -152,16 +154,19 @@ export class PatientDetailsComponent implements OnInit {
   }
 
   async loadPatientAppointments(patientId: number): Promise<void> {
+    this.appointments.set([]);
+    this.appointmentsCursor.set(null);
+    await this.loadMorePatientAppointments(patientId);
+  }
+
+  // Carga la página siguiente del historial (el backend ya la devuelve del más reciente al más antiguo)
+  async loadMorePatientAppointments(patientId: number): Promise<void> {
     this.loading.set(true); // Activar loading
     try {
-      const patientAppointments = await this.turnosService.getAppointmentsByPatientId(patientId);
-      const sortedAppointments = patientAppointments.sort((a, b) => {
-        const dateA = new Date(`${a.fecha}T${a.hora}`);
-        const dateB = new Date(`${b.fecha}T${b.hora}`);
-        return dateB.getTime() - dateA.getTime();
-      });
-      this.appointments.set(sortedAppointments);
-      console.log('Historial de turnos del paciente cargado:', sortedAppointments);
+      const page = await this.turnosService.getAppointmentsByPatientId(patientId, this.appointmentsCursor());
+      this.appointments.update(current => [...current, ...page.items]);
+      this.appointmentsCursor.set(page.nextCursor);
+      console.log('Historial de turnos del paciente cargado:', this.appointments());
     } catch (error) {
       console.error('Error al cargar el historial de turnos:', error);
       this.showNotification('error', 'Error al cargar el historial de turnos.');
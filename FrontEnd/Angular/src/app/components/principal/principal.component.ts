@@ -319,6 +319,7 @@ export class PrincipalComponent implements OnInit, OnDestroy {
 
     this.duracionTurno.set(turno.duracion ?? 50);
     this.observaciones.set(turno.observaciones || '');
+    this.loadObservacionesForModal(turno);
 
     const initialModalDate =
       turno.fecha && turno.hora
@@ -355,6 +356,21 @@ export class PrincipalComponent implements OnInit, OnDestroy {
     }, 0); // Defer execution to next tick
   }
 
+  // La agenda no trae las notas de sesion: se piden aparte para no pisarlas al guardar la modificacion
+  private async loadObservacionesForModal(turno: Turno): Promise<void> {
+    if (turno.apiId === undefined || turno.apiId === null) {
+      return;
+    }
+    try {
+      const notes = await this.turnosService.getAppointmentNotes(turno.apiId);
+      if (this.modalTurno() === turno) {
+        this.observaciones.set(notes || '');
+      }
+    } catch (error) {
+      console.error('[loadObservacionesForModal] Error al cargar las notas del turno:', error);
+    }
+  }
+
   private preloadPatientForModal(turno: Turno) {
     console.log(
       '[preloadPatientForModal] Starting preload for appointment:',
@@ -747,9 +763,14 @@ export class PrincipalComponent implements OnInit, OnDestroy {
     );
     this.selectedAppointmentForNotes.set(appointment);
 
-    // Inicializar las notas con las que ya tiene el turno (si existen)
-    // Asumiendo que 'notes' es la propiedad en AppointmentResponseDto para las observaciones
-    this.currentNotes.set(appointment.notes || '');
+    // Las notas no vienen en la lista de turnos: se cargan aparte con /get-notes/{id}
+    try {
+      const notes = await this.turnosService.getAppointmentNotes(appointment.id);
+      this.currentNotes.set(notes || appointment.notes || '');
+    } catch (error) {
+      console.error('ERROR [openNotesModal]: Error al cargar las notas del turno:', error);
+      this.currentNotes.set(appointment.notes || '');
+    }
 
     // Si el turno tiene un paciente asociado y un número de teléfono, intenta cargar observaciones históricas
     if (
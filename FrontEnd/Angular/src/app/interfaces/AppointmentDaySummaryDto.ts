@@ -0,0 +1,7 @@
+export interface AppointmentDaySummaryDto {
+  fecha: string; // Formato YYYY-MM-DD
+  counts: { [estado: string]: number }; // Cantidad de turnos por estado (e.g., "CONFIRMADO": 3)
+  total: number; // Total de turnos del día
+  firstSlot: string; // Primera franja ocupada, formato HH:MM:SS
+  lastSlot: string; // Última franja ocupada, formato HH:MM:SS
+}
@@ -0,0 +1,6 @@
+import { AppointmentResponseDto } from './AppointmentResponseDto';
+
+export interface AppointmentPageDto {
+  items: AppointmentResponseDto[]; // Turnos de la página
+  nextCursor: string | null; // Cursor para pedir la página siguiente (null si no hay más)
+}
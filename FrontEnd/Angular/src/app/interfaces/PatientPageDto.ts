@@ -0,0 +1,9 @@
+import { AppointmentPatientDto } from './AppointmentPatientDto';
+
+export interface PatientPageDto {
+  items: AppointmentPatientDto[]; // Pacientes de la página
+  page: number; // Número de página (desde 0)
+  size: number; // Tamaño de página
+  totalElements: number; // Cantidad total de pacientes
+  totalPages: number; // Cantidad total de páginas
+}
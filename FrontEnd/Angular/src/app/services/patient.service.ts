@@ -8,6 +8,7 @@ import { AppointmentRequestDto } from '../interfaces/AppointmentRequestDto';
 import { AppointmentResponseDto } from '../interfaces/AppointmentResponseDto';
 import { environment } from '../../environments/environment';
 import { AppointmentPatientDto } from '../interfaces/AppointmentPatientDto';
+import { PatientPageDto } from '../interfaces/PatientPageDto';
 
 
 @Injectable({
@@ -45,6 +46,41 @@ export class PatientService { // <-- ¡Asegúrate de que 'export' esté aquí!
     });
   }
 
+  /**
+   * Obtiene una página del listado de pacientes, ordenado por apellido y nombre en el backend.
+   * @param page Número de página (desde 0).
+   * @param size Tamaño de página.
+   * @returns Una Promesa que resuelve con la página de pacientes.
+   */
+  async getPatientsPage(page: number = 0, size: number = 20): Promise<PatientPageDto> {
+    return new Promise((resolve, reject) => {
+      this.http.get<PatientPageDto>(`${this.baseUrl}/patients/page`, { params: { page: page.toString(), size: size.toString() } })
+        .pipe(
+          catchError(this.handleError<PatientPageDto>('getPatientsPage'))
+        )
+        .subscribe({
+          next: (result: PatientPageDto) => resolve(result),
+          error: (err) => {
+            console.error('Error al obtener la página de pacientes:', err);
+            reject(err);
+          }
+        });
+    });
+  }
+
+  /**
+   * Busca pacientes por nombre, apellido, teléfono o email (las mejores coincidencias primero).
+   * @param query Texto a buscar.
+   * @param limit Cantidad máxima de resultados.
+   * @returns Un Observable que emite los pacientes encontrados.
+   */
+  searchPatients(query: string, limit: number = 20): Observable<AppointmentPatientDto[]> {
+    return this.http.get<AppointmentPatientDto[]>(`${this.baseUrl}/patients/search`, { params: { q: query, limit: limit.toString() } })
+      .pipe(
+        catchError(this.handleError<AppointmentPatientDto[]>('searchPatients'))
+      );
+  }
+
   /**
    * Obtiene los detalles de un paciente por su ID.
    * @param id El ID del paciente.
@@ -3,7 +3,7 @@
 import { inject, Injectable, PLATFORM_ID, signal } from "@angular/core";
 import { environment } from "../../environments/environment";
 import { HttpClient, HttpErrorResponse } from "@angular/common/http"; // Import HttpErrorResponse
-import { AppointmentResponseDto } from "../interfaces/AppointmentResponseDto"; // Ensure this path is correct
+import { AppointmentPageDto } from "../interfaces/AppointmentPageDto";
 import { catchError } from "rxjs/operators"; // Correct import for catchError
 import { lastValueFrom, throwError } from "rxjs"; // Import lastValueFrom and throwError
 
@@ -21,23 +21,36 @@ export class ProfessionalService {
   public error = signal<string | null>(null);
 
   /**
-   * Fetches all appointments from the backend.
-   * @returns A Promise resolving to an array of AppointmentResponseDto.
+   * Fetches one page of appointments from the backend, most recent first.
+   * Only past appointments (CONFIRMADO already done, or CANCELADO) are requested, as used by the history view.
+   * @param cursor The nextCursor returned by the previous page, or null for the first page.
+   * @param size The page size.
+   * @returns A Promise resolving to an AppointmentPageDto.
    */
-  async getTurnosFromBackend(): Promise<AppointmentResponseDto[]> {
+  async getTurnosFromBackend(cursor: string | null = null, size: number = 50): Promise<AppointmentPageDto> {
     this.loading.set(true);
     this.error.set(null); // Clear previous errors
 
+    const params: { [param: string]: string | string[] } = {
+      status: ['CONFIRMADO', 'CANCELADO'],
+      to: this.formatDateTime(new Date()),
+      order: 'desc',
+      size: size.toString(),
+    };
+    if (cursor) {
+      params['cursor'] = cursor;
+    }
+
     try {
-      const backendResponses: AppointmentResponseDto[] = await lastValueFrom(
-        this.http.get<AppointmentResponseDto[]>(`${this.API_BASE_URL}/appointments`)
+      const page: AppointmentPageDto = await lastValueFrom(
+        this.http.get<AppointmentPageDto>(`${this.API_BASE_URL}/appointments`, { params })
           .pipe(
-            catchError(error => this.handleError<AppointmentResponseDto[]>(error, 'getTurnosFromBackend'))
+            catchError(error => this.handleError<AppointmentPageDto>(error, 'getTurnosFromBackend'))
           )
       );
-      console.log('[ProfessionalService] All appointments fetched successfully:', backendResponses);
+      console.log('[ProfessionalService] Appointments page fetched successfully:', page);
       this.loading.set(false);
-      return backendResponses;
+      return page;
     } catch (err: any) {
       console.error('[ProfessionalService] Error in getTurnosFromBackend promise:', err);
       this.loading.set(false);
@@ -47,6 +60,13 @@ export class ProfessionalService {
     }
   }
 
+  // Formats a Date as yyyy-MM-ddTHH:mm:ss (local time), the format expected by the backend
+  private formatDateTime(date: Date): string {
+    const pad = (value: number) => value.toString().padStart(2, '0');
+    return `${date.getFullYear()}-${pad(date.getMonth() + 1)}-${pad(date.getDate())}` +
+      `T${pad(date.getHours())}:${pad(date.getMinutes())}:${pad(date.getSeconds())}`;
+  }
+
   /**
    * Handles HTTP errors and returns an observable with a user-friendly error message.
    * @param error The HttpErrorResponse object.
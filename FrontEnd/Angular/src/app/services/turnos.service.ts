@@ -9,6 +9,8 @@ import { environment } from '../../environments/environment'; // Adjust path if
 import { Patient } from '../interfaces/patient'; // Import Patient interface
 import { AppointmentResponseDto } from '../interfaces/AppointmentResponseDto';
 import { AppointmentRequestDto } from '../interfaces/AppointmentRequestDto';
+import { AppointmentDaySummaryDto } from '../interfaces/AppointmentDaySummaryDto';
+import { AppointmentPageDto } from '../interfaces/AppointmentPageDto';
 import { Turno } from '../interfaces/Turno';
 import { AppointmentPatientDto } from '../interfaces/AppointmentPatientDto';
 
@@ -592,25 +594,32 @@ private generarTurnosBase(diaSemana: number): Array<{
   }
 
   /**
-   * Obtiene el historial de turnos para un paciente específico.
+   * Obtiene una página del historial de turnos de un paciente, del más reciente al más antiguo.
    * @param patientId El ID del paciente.
-   * @returns Una Promesa que resuelve con un array de AppointmentResponseDto.
+   * @param cursor El nextCursor de la página anterior, o null para la primera página.
+   * @param size Cantidad de turnos por página.
+   * @returns Una Promesa que resuelve con un AppointmentPageDto.
    */
-  async getAppointmentsByPatientId(patientId: number): Promise<AppointmentResponseDto[]> {
+  async getAppointmentsByPatientId(patientId: number, cursor: string | null = null, size: number = 20): Promise<AppointmentPageDto> {
     this.loading.set(true);
     this.error.set(null);
     console.log(`[TurnosService] Solicitando historial de turnos para paciente ID: ${patientId}`);
 
+    const params: { [param: string]: string } = { size: size.toString() };
+    if (cursor) {
+      params['cursor'] = cursor;
+    }
+
     return new Promise((resolve, reject) => {
-      this.http.get<AppointmentResponseDto[]>(`${this.API_BASE_URL}/appointments/patient/${patientId}`)
+      this.http.get<AppointmentPageDto>(`${this.API_BASE_URL}/appointments/patient/${patientId}`, { params })
         .pipe(
-          catchError(error => this.handleError<AppointmentResponseDto[]>(error, 'getAppointmentsByPatientId'))
+          catchError(error => this.handleError<AppointmentPageDto>(error, 'getAppointmentsByPatientId'))
         )
         .subscribe({
-          next: (appointments: AppointmentResponseDto[]) => {
-            console.log(`Historial de turnos para paciente ID ${patientId}:`, appointments);
+          next: (page: AppointmentPageDto) => {
+            console.log(`Historial de turnos para paciente ID ${patientId}:`, page);
             this.loading.set(false);
-            resolve(appointments);
+            resolve(page);
           },
           error: (err) => {
             console.error(`Error al obtener historial de turnos para paciente ID ${patientId}:`, err);
@@ -621,6 +630,28 @@ private generarTurnosBase(diaSemana: number): Array<{
     });
   }
 
+/**
+   * Obtiene el resumen por día (cantidad de turnos por estado) de un rango de fechas,
+   * con una sola llamada al backend en lugar de una por día visible.
+   * Utiliza la API: GET /appointments/summary?from=YYYY-MM-DD&to=YYYY-MM-DD
+   * @param from Primer día del rango.
+   * @param to Último día del rango (inclusive).
+   * @returns Una Promesa que resuelve con un array de AppointmentDaySummaryDto (solo días con turnos).
+   */
+  async getResumenPorDia(from: Date, to: Date): Promise<AppointmentDaySummaryDto[]> {
+    const fromIso = this.formatearFecha(from);
+    const toIso = this.formatearFecha(to);
+    console.log(`[TurnosService] Solicitando resumen de turnos del ${fromIso} al ${toIso}`);
+
+    return lastValueFrom(
+      this.http.get<AppointmentDaySummaryDto[]>(`${this.API_BASE_URL}/appointments/summary`, {
+        params: { from: fromIso, to: toIso }
+      }).pipe(
+        catchError(error => this.handleError<AppointmentDaySummaryDto[]>(error, 'getResumenPorDia'))
+      )
+    );
+  }
+
 /**
    * Actualiza las notas de sesión de un turno específico.
    * Utiliza la nueva API: PATCH /session-notes/{id}
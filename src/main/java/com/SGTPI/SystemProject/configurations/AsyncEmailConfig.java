@@ -1,25 +1,39 @@
 package com.SGTPI.SystemProject.configurations;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 //clase encargada de enviar emails de forma asincrona
 @Configuration
 @EnableAsync
 public class AsyncEmailConfig {
 
+    //Los correos ya estan guardados en la bandeja de salida (EmailOutboxService) cuando se encarga un envio al pool:
+    //si el pool esta lleno la tarea se rechaza, se cuenta en email.executor.rejected y el correo sale en el proximo
+    //ciclo programado. Profundidad de cola e hilos activos: executor.queued/executor.active con name=emailExecutor
     @Bean(name = "emailExecutor")
-    public Executor emailExecutor() {
+    public Executor emailExecutor(MeterRegistry meterRegistry) {
         // Usa ThreadPoolTaskExecutor para crear un pool de hilos
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5); // Número mínimo de hilos en el pool (ajustar si es necesario)
         executor.setMaxPoolSize(10); // Número máximo de hilos en el pool
         executor.setQueueCapacity(25); // Cantidad de tareas en cola antes de crear un nuevo hilo
         executor.setThreadNamePrefix("EmailSender-"); // Prefijo para los nombres de los hilos
+        Counter rejected = Counter.builder("email.executor.rejected")
+                .description("Envios rechazados por tener el pool de correo lleno")
+                .register(meterRegistry);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            // se sigue rechazando para que quien encargo la tarea sepa que no va a correr
+            throw new RejectedExecutionException("Pool de correo lleno");
+        });
         executor.initialize(); // Inicializa el pool
         return executor;
     }
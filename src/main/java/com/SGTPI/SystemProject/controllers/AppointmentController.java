@@ -1,22 +1,33 @@
 package com.SGTPI.SystemProject.controllers;
 
+import com.SGTPI.SystemProject.dto.AppointmentPatchDto;
+import com.SGTPI.SystemProject.dto.AppointmentQueryDto;
+import com.SGTPI.SystemProject.dto.AppointmentRangeRequestDto;
 import com.SGTPI.SystemProject.dto.AppointmentRequestDto;
 import com.SGTPI.SystemProject.dto.AppointmentResponseDto;
+import com.SGTPI.SystemProject.dto.AppointmentSeriesRequestDto;
 import com.SGTPI.SystemProject.exceptions.AppointmentBlockedException;
 import com.SGTPI.SystemProject.exceptions.AppointmentCancellationException;
 import com.SGTPI.SystemProject.exceptions.AppointmentConflictException;
+import com.SGTPI.SystemProject.exceptions.PatientNotFoundException;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.services.AppointmentExportService;
 import com.SGTPI.SystemProject.services.AppointmentService;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.SGTPI.SystemProject.services.PatientService;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 //controller de appointments
 @RestController
@@ -25,8 +36,11 @@ public class AppointmentController {
 
     private final AppointmentService appService;
 
-    public AppointmentController(AppointmentService appService) {
+    private final AppointmentExportService exportService;
+
+    public AppointmentController(AppointmentService appService, AppointmentExportService exportService) {
         this.appService = appService;
+        this.exportService = exportService;
     }
 
     //crear turno
@@ -46,6 +60,17 @@ public class AppointmentController {
         return ResponseEntity.badRequest().body("Paciente no existe");
     }
 
+    //crear una serie de turnos recurrentes (ej: todos los lunes 10:00 durante 20 semanas)
+    @PostMapping("/appointment/series")
+    public ResponseEntity<?> createAppointmentSeries(@RequestBody AppointmentSeriesRequestDto dto) {
+        try {
+            List<AppointmentResponseDto> created = appService.createAppointmentSeries(dto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     //obtener turnos por fecha formato iso= yyyy-mm-dd
     @GetMapping("/appointments/{date}")
     public ResponseEntity<?> getAppointmentsByDate(@PathVariable
@@ -53,27 +78,72 @@ public class AppointmentController {
         return ResponseEntity.ok(appService.getAppointmentsByDate(date));
     }
 
-    //obtener lista de turnos total
-    @GetMapping("/appointments")
-    public ResponseEntity<?> getAppointments() {
-        return ResponseEntity.ok(appService.getAppointments());
+    //resumen del calendario por dia (cantidad de turnos por estado) entre from y to inclusive, formato iso= yyyy-mm-dd
+    @GetMapping("/appointments/summary")
+    public ResponseEntity<?> getAppointmentSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(appService.getAppointmentSummary(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
-    //lista de turnos por paciente
-    @GetMapping("/appointments/patient/{id}")
-    public ResponseEntity<?> getAppointments(@PathVariable int id) {
+    //obtener turnos paginados con filtros opcionales (estados, rango [from, to), paciente, urgente).
+    //Para la pagina siguiente se envia el nextCursor recibido en la respuesta anterior
+    @GetMapping("/appointments")
+    public ResponseEntity<?> getAppointments(
+            @RequestParam(required = false) Set<AppointmentStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime to,
+            @RequestParam(required = false) Integer patientId,
+            @RequestParam(required = false) Boolean urgent,
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
         try {
-            List<AppointmentResponseDto> dto = appService.getAppointmentsById(id);
+            return ResponseEntity.ok(appService.queryAppointments(new AppointmentQueryDto(
+                    status, from, to, patientId, urgent, "desc".equalsIgnoreCase(order), cursor, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 
-            if (dto.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
+    //exportar todos los turnos (o los del rango [from, to)) en formato csv o ndjson.
+    //La respuesta se escribe a medida que se leen las filas, sin cargar la tabla en memoria
+    @GetMapping("/appointments/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime to) {
+        AppointmentExportService.Format exportFormat = "ndjson".equalsIgnoreCase(format)
+                ? AppointmentExportService.Format.NDJSON
+                : AppointmentExportService.Format.CSV;
+        MediaType mediaType = exportFormat == AppointmentExportService.Format.NDJSON
+                ? MediaType.APPLICATION_NDJSON
+                : new MediaType("text", "csv", StandardCharsets.UTF_8);
+        String fileName = "turnos." + exportFormat.name().toLowerCase();
+
+        StreamingResponseBody body = out -> exportService.export(exportFormat, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
 
-             return ResponseEntity.ok(dto);
+    //historial de turnos por paciente (del mas reciente al mas antiguo), paginado por cursor y filtrable por estado
+    @GetMapping("/appointments/patient/{id}")
+    public ResponseEntity<?> getAppointments(@PathVariable int id,
+            @RequestParam(required = false) Set<AppointmentStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(appService.getAppointmentsById(id, status, cursor, size));
+        } catch (PatientNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null); // O un mensaje de error más específico
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
@@ -81,9 +151,13 @@ public class AppointmentController {
     //modificar turno
     @PatchMapping("/patch-appointment/{id}")
     public ResponseEntity<?> patchMapping(@PathVariable int id,
-            @RequestBody Map<String, Object> updates) {
-        AppointmentResponseDto updated = appService.patchAppointment(id, updates);
-        return ResponseEntity.ok().body(updated);
+            @RequestBody AppointmentPatchDto patch) {
+        try {
+            AppointmentResponseDto updated = appService.patchAppointment(id, patch);
+            return ResponseEntity.ok().body(updated);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
 
@@ -119,6 +193,16 @@ public class AppointmentController {
         return ResponseEntity.ok(result);
     }
 
+    //bloquear/desbloquear todas las franjas de un rango (ej: vacaciones)
+    @PutMapping("/appointments/range")
+    public ResponseEntity<?> handleRangeRequest(@RequestBody AppointmentRangeRequestDto dto) {
+        try {
+            return ResponseEntity.ok(appService.applyRangeAction(dto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     //set oberservations
     @PatchMapping("/session-notes/{id}")
     public ResponseEntity<?> setObservations(@RequestBody String notes,@PathVariable int id){
@@ -0,0 +1,46 @@
+package com.SGTPI.SystemProject.controllers;
+
+import com.SGTPI.SystemProject.services.AvailabilityService;
+import java.time.LocalDateTime;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+//controller de busqueda de franjas libres
+@RestController
+@CrossOrigin(origins = "http://localhost:4200")
+public class AvailabilityController {
+
+    private final AvailabilityService availabilityService;
+
+    public AvailabilityController(AvailabilityService availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    //franjas libres en el rango [from, to) formato yyyy-MM-ddTHH:mm:ss
+    @GetMapping("/availability")
+    public ResponseEntity<?> getFreeSlots(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(availabilityService.findFreeSlots(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    //proximas count franjas libres a partir de after (por defecto, ahora)
+    @GetMapping("/availability/next")
+    public ResponseEntity<?> getNextFreeSlots(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime after,
+            @RequestParam(defaultValue = "10") int count) {
+        try {
+            return ResponseEntity.ok(availabilityService.findNextFreeSlots(after, count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.SGTPI.SystemProject.controllers;
 
 import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.dto.PatientImportResultDto;
+import com.SGTPI.SystemProject.dto.PatientPageDto;
+import com.SGTPI.SystemProject.dto.PatientPatchDto;
+import com.SGTPI.SystemProject.services.PatientImportService;
 import com.SGTPI.SystemProject.services.PatientService;
 import com.SGTPI.SystemProject.services.PatientService.Observations;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,7 +19,9 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 //controller de pacientes
 @RestController
@@ -23,8 +30,11 @@ public class PatientController {
 
     private final PatientService patientService;
 
-    public PatientController(PatientService patientService) {
+    private final PatientImportService patientImportService;
+
+    public PatientController(PatientService patientService, PatientImportService patientImportService) {
         this.patientService = patientService;
+        this.patientImportService = patientImportService;
     }
 
     //crear paciente
@@ -41,6 +51,22 @@ public class PatientController {
 
     }
 
+    //importar pacientes desde un archivo CSV o XLSX (encabezado: nombre, apellido, telefono, email).
+    //Devuelve los totales y el detalle de las filas rechazadas
+    @PostMapping("/patients/import")
+    public ResponseEntity<?> importPatients(@RequestParam("file") MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            PatientImportResultDto result = patientImportService.importPatients(file.getOriginalFilename(), in);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("No se pudo leer el archivo: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error al importar los pacientes");
+        }
+    }
+
     //obtener un paciente por id
     @GetMapping("/patient/{id}")
     public ResponseEntity<?> getPatient(@PathVariable int id) {
@@ -58,13 +84,40 @@ public class PatientController {
         return ResponseEntity.ok(patients);
     }
 
+    //listado paginado de pacientes ordenado por apellido y nombre
+    @GetMapping("/patients/page")
+    public ResponseEntity<?> getPatientsPage(@RequestParam(defaultValue = "0") int page,
+                                             @RequestParam(defaultValue = "20") int size) {
+        try {
+            PatientPageDto result = patientService.getPatientsPage(page, size);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    //buscar pacientes por nombre, apellido, telefono o email (mejores coincidencias primero)
+    @GetMapping("/patients/search")
+    public ResponseEntity<?> searchPatients(@RequestParam("q") String query,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<PatientDto> patients = patientService.searchPatients(query, limit);
+            return ResponseEntity.ok(patients);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     //modificar paciente
     @PatchMapping("/patch-patient/{id}")
     public ResponseEntity<?> patchPatient(@PathVariable Integer id,
-            @RequestBody Map<String, Object> updates) {
-
-        PatientDto updatedPatient = patientService.partialUpdate(id, updates);
-        return ResponseEntity.ok(updatedPatient);
+            @RequestBody PatientPatchDto patch) {
+        try {
+            PatientDto updatedPatient = patientService.partialUpdate(id, patch);
+            return ResponseEntity.ok(updatedPatient);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     //guardar observations
@@ -0,0 +1,26 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+//DTO de resumen de un dia del calendario: cantidad de turnos por estado y primera/ultima franja
+public record AppointmentDaySummaryDto(
+        @JsonProperty("fecha")
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        LocalDate fecha,
+        @JsonProperty("counts")
+        Map<AppointmentStatus, Long> counts,
+        @JsonProperty("total")
+        long total,
+        @JsonProperty("firstSlot")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime firstSlot,
+        @JsonProperty("lastSlot")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime lastSlot
+        ) {
+}
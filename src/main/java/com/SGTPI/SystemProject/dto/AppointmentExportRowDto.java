@@ -0,0 +1,32 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+//fila de la exportacion de turnos (proyeccion plana de turno + paciente, sin entidades)
+public record AppointmentExportRowDto(
+        @JsonProperty("id")
+        Integer id,
+        @JsonProperty("fechaHora")
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime date,
+        @JsonProperty("state")
+        AppointmentStatus status,
+        @JsonProperty("duration")
+        Integer duration,
+        @JsonProperty("urgent")
+        boolean urgent,
+        @JsonProperty("patientId")
+        Integer patientId,
+        @JsonProperty("patientName")
+        String patientName,
+        @JsonProperty("patientLastName")
+        String patientLastName,
+        @JsonProperty("patientEmail")
+        String patientEmail,
+        @JsonProperty("patientPhoneNumber")
+        String patientPhoneNumber
+        ) {
+}
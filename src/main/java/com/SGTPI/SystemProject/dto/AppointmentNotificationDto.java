@@ -0,0 +1,12 @@
+package com.SGTPI.SystemProject.dto;
+
+import java.time.LocalDateTime;
+
+//DTO con los datos minimos para notificar a un paciente sobre su turno
+public record AppointmentNotificationDto(
+        Integer appointmentId,
+        LocalDateTime date,
+        String email,
+        String firstName
+) {
+}
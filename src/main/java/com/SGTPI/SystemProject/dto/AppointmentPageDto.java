@@ -0,0 +1,13 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+//DTO de una pagina de turnos; nextCursor es null cuando no hay mas resultados
+public record AppointmentPageDto(
+        @JsonProperty("items")
+        List<AppointmentResponseDto> items,
+        @JsonProperty("nextCursor")
+        String nextCursor
+        ) {
+}
@@ -0,0 +1,26 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+//DTO de modificacion parcial de turno (JSON merge patch).
+//Fecha (yyyy-MM-dd), hora (HH:mm:ss) y estado los convierte Jackson al leer el body.
+//Un campo ausente llega como null y no se modifica; un campo enviado como null llega como Optional.empty()
+//y borra el valor (solo las notas de sesion admiten borrarse)
+public record AppointmentPatchDto(
+        @JsonProperty("duration")
+        Optional<Integer> duration,
+        @JsonProperty("fecha")
+        Optional<LocalDate> fecha,
+        @JsonProperty("hora")
+        Optional<LocalTime> hora,
+        @JsonProperty("state")
+        Optional<AppointmentStatus> state,
+        @JsonProperty("sessionNotes")
+        Optional<String> sessionNotes,
+        @JsonProperty("patient")
+        Optional<PatientDto> patient) {
+}
@@ -0,0 +1,18 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+//filtros y paginacion de la consulta de turnos (rango [from, to), cursor opaco de la pagina anterior)
+public record AppointmentQueryDto(
+        Set<AppointmentStatus> statuses,
+        LocalDateTime from,
+        LocalDateTime to,
+        Integer patientId,
+        Boolean urgent,
+        boolean descending,
+        String cursor,
+        int size
+        ) {
+}
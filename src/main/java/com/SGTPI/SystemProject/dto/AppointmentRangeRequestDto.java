@@ -0,0 +1,21 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+//DTO de solicitud para bloquear/desbloquear todas las franjas de un rango [from, to)
+public record AppointmentRangeRequestDto(
+        @JsonProperty("from")
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime from,
+        @JsonProperty("to")
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime to,
+        @JsonProperty("block")
+        boolean block,
+        //si es true tambien se cancelan (y notifican) los turnos CONFIRMADOS del rango; solo vale con block=true
+        @JsonProperty("cancelConfirmed")
+        boolean cancelConfirmed
+        ) {
+}
@@ -0,0 +1,18 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+//DTO de respuesta de una operacion sobre un rango de franjas
+public record AppointmentRangeResultDto(
+        @JsonProperty("updated")
+        int updated,
+        @JsonProperty("created")
+        int created,
+        @JsonProperty("cancelled")
+        int cancelled,
+        @JsonProperty("skippedConfirmed")
+        int skippedConfirmed,
+        @JsonProperty("message")
+        String message
+        ) {
+}
@@ -1,8 +1,10 @@
 
 package com.SGTPI.SystemProject.dto;
 
+import com.SGTPI.SystemProject.models.AppointmentStatus;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Email;
+import java.time.LocalDateTime;
 
 //DTO de respuesta de Appointment
 public record AppointmentResponseDto(
@@ -30,4 +32,22 @@ public record AppointmentResponseDto(
         @JsonProperty("notes")
         String notes
         ) {
+
+    //constructor usado por las proyecciones JPQL (SELECT new ...): mismo formato que AppointmentMapper.entityToResponse
+    public AppointmentResponseDto(Integer id, Integer patientId, String patientName, String patientLastName,
+                                  String patientPhoneNumber, String patientEmail, LocalDateTime date,
+                                  AppointmentStatus status, Integer duration, String notes) {
+        this(id, patientId, patientName, patientLastName, patientPhoneNumber, patientEmail,
+                date.toLocalDate().toString(), // Fecha en formato YYYY-MM-DD
+                date.toLocalTime().toString(), // Hora en formato HH:mm:ss
+                status.toString(),
+                duration, notes);
+    }
+
+    //proyeccion de listas y agenda: sin las notas de sesion (se piden aparte con /get-notes/{id})
+    public AppointmentResponseDto(Integer id, Integer patientId, String patientName, String patientLastName,
+                                  String patientPhoneNumber, String patientEmail, LocalDateTime date,
+                                  AppointmentStatus status, Integer duration) {
+        this(id, patientId, patientName, patientLastName, patientPhoneNumber, patientEmail, date, status, duration, null);
+    }
 }
@@ -0,0 +1,60 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+//DTO de solicitud de una serie de turnos recurrentes.
+//Regla de recurrencia: cada intervalWeeks semanas a partir de fecha, hasta completar occurrences o llegar a until
+public record AppointmentSeriesRequestDto(
+        @JsonProperty("duration")
+        int duration,
+        @JsonProperty("fecha")
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        LocalDate fecha,
+        @JsonProperty("hora")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime hora,
+        @JsonProperty("patient")
+        PatientDto patient,
+        @JsonProperty("sessionNotes")
+        String sessionNotes,
+        @JsonProperty("intervalWeeks")
+        Integer intervalWeeks,
+        @JsonProperty("occurrences")
+        Integer occurrences,
+        @JsonProperty("until")
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        LocalDate until
+        ) {
+
+    //calcular las fechas/horas de todas las ocurrencias (como maximo maxOccurrences)
+    public List<LocalDateTime> occurrenceDates(int maxOccurrences) {
+        int weeks = intervalWeeks == null ? 1 : intervalWeeks;
+        if (weeks < 1) {
+            throw new IllegalArgumentException("El intervalo de la serie debe ser de al menos una semana");
+        }
+        if (occurrences == null && until == null) {
+            throw new IllegalArgumentException("La serie debe indicar la cantidad de ocurrencias o la fecha de fin");
+        }
+        if (occurrences != null && occurrences > maxOccurrences) {
+            throw new IllegalArgumentException("La serie no puede superar las " + maxOccurrences + " ocurrencias");
+        }
+
+        int count = occurrences != null ? occurrences : maxOccurrences;
+        List<LocalDateTime> dates = new ArrayList<>();
+        LocalDate date = fecha;
+        while (dates.size() < count && (until == null || !date.isAfter(until))) {
+            dates.add(LocalDateTime.of(date, hora));
+            date = date.plusWeeks(weeks);
+        }
+        if (occurrences == null && until != null && !date.isAfter(until)) {
+            throw new IllegalArgumentException("La serie no puede superar las " + maxOccurrences + " ocurrencias");
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,12 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import java.time.LocalDateTime;
+
+//DTO liviano con la ocupacion de una franja horaria (id, fecha/hora y estado)
+public record AppointmentSlotDto(
+        Integer id,
+        LocalDateTime date,
+        AppointmentStatus status
+) {
+}
@@ -0,0 +1,15 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+//fila agregada por dia y estado: cantidad de turnos y primera/ultima franja
+public record AppointmentStatusCountDto(
+        LocalDate fecha,
+        AppointmentStatus status,
+        Long count,
+        LocalDateTime first,
+        LocalDateTime last
+) {
+}
@@ -0,0 +1,19 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+//DTO de una franja libre de la agenda
+public record FreeSlotDto(
+        @JsonProperty("fecha")
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        LocalDate fecha,
+        @JsonProperty("hora")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime hora,
+        @JsonProperty("duration")
+        int duration
+        ) {
+}
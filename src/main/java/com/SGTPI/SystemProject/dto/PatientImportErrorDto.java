@@ -0,0 +1,14 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+//DTO de una fila rechazada en la importacion de pacientes
+public record PatientImportErrorDto(
+        @JsonProperty("row")
+        int row,
+        @JsonProperty("phoneNumber")
+        String phoneNumber,
+        @JsonProperty("message")
+        String message
+        ) {
+}
@@ -0,0 +1,22 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+//DTO de resultado de una importacion de pacientes: totales, filas rechazadas (como maximo las primeras N)
+//y rendimiento de la carga
+public record PatientImportResultDto(
+        @JsonProperty("totalRows")
+        int totalRows,
+        @JsonProperty("imported")
+        int imported,
+        @JsonProperty("rejected")
+        int rejected,
+        @JsonProperty("errors")
+        List<PatientImportErrorDto> errors,
+        @JsonProperty("elapsedMillis")
+        long elapsedMillis,
+        @JsonProperty("rowsPerSecond")
+        long rowsPerSecond
+        ) {
+}
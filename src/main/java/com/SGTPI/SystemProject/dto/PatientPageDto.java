@@ -0,0 +1,19 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+//DTO de una pagina del listado de pacientes
+public record PatientPageDto(
+        @JsonProperty("items")
+        List<PatientDto> items,
+        @JsonProperty("page")
+        int page,
+        @JsonProperty("size")
+        int size,
+        @JsonProperty("totalElements")
+        long totalElements,
+        @JsonProperty("totalPages")
+        int totalPages
+        ) {
+}
@@ -0,0 +1,18 @@
+package com.SGTPI.SystemProject.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Optional;
+
+//DTO de modificacion parcial de paciente (JSON merge patch).
+//Jackson lo arma una sola vez al leer el body: un campo ausente llega como null y no se modifica,
+//un campo enviado como null llega como Optional.empty() y borra el valor (solo el email admite borrarse)
+public record PatientPatchDto(
+        @JsonProperty("firstName")
+        Optional<String> firstName,
+        @JsonProperty("lastName")
+        Optional<String> lastName,
+        @JsonProperty("email")
+        Optional<String> email,
+        @JsonProperty("phoneNumber")
+        Optional<String> phoneNumber) {
+}
@@ -0,0 +1,11 @@
+package com.SGTPI.SystemProject.dto;
+
+import java.time.LocalDateTime;
+
+//DTO liviano de un recordatorio pendiente para el temporizador (id, turno y hora de envio)
+public record ReminderScheduleDto(
+        Integer reminderId,
+        Integer appointmentId,
+        LocalDateTime sendTime
+) {
+}
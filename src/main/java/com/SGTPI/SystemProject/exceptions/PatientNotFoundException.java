@@ -0,0 +1,12 @@
+package com.SGTPI.SystemProject.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Exception paciente inexistente
+@ResponseStatus(HttpStatus.NOT_FOUND) // Spring devuelve un 404 Not Found
+public class PatientNotFoundException extends RuntimeException {
+    public PatientNotFoundException(String message) {
+        super(message);
+    }
+}
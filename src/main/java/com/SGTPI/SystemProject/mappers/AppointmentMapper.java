@@ -6,8 +6,8 @@ import com.SGTPI.SystemProject.models.Appointment;
 import com.SGTPI.SystemProject.models.AppointmentStatus;
 import com.SGTPI.SystemProject.models.Patient;
 import com.SGTPI.SystemProject.models.Professional;
-import com.SGTPI.SystemProject.repositories.PatientRepository;
-import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
+import com.SGTPI.SystemProject.services.PatientCache;
+import com.SGTPI.SystemProject.services.ProfessionalCache;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -21,18 +21,18 @@ import org.springframework.stereotype.Service;
 public class AppointmentMapper {
 
 
-    private final PatientRepository patientRepository;
-    private final ProfessionalRepository professionalRepository;
+    private final PatientCache patientCache;
+    private final ProfessionalCache professionalCache;
 
-    public AppointmentMapper(PatientRepository patientRepository, ProfessionalRepository professionalRepository) {
-        this.patientRepository = patientRepository;
-        this.professionalRepository = professionalRepository;
+    public AppointmentMapper(PatientCache patientCache, ProfessionalCache professionalCache) {
+        this.patientCache = patientCache;
+        this.professionalCache = professionalCache;
     }
 
     //convertir AppointmentRequestDto a Appointment Entity
     public Appointment requestToAppointment(AppointmentRequestDto dto) {
-        Optional<Patient> patient = patientRepository.findByPhoneNumber(dto.patient().phoneNumber());
-        Professional professional = professionalRepository.findById(1);
+        Optional<Patient> patient = patientCache.findByPhoneNumber(dto.patient().phoneNumber());
+        Professional professional = professionalCache.reference();
 
         if (patient.isEmpty() || professional == null) {
             throw new IllegalArgumentException("Paciente o profesional no encontrado");
@@ -50,6 +50,16 @@ public class AppointmentMapper {
 
     //convertir Appointment Entity a AppointmentResponseDto
     public AppointmentResponseDto entityToResponse(Appointment appointment) {
+        return toResponse(appointment, appointment.getSessionNotes());
+    }
+
+    //convertir Appointment Entity a AppointmentResponseDto para listas: sin las notas de sesion,
+    //que son un campo diferido y se cargarian con una consulta por turno
+    public AppointmentResponseDto entityToListItem(Appointment appointment) {
+        return toResponse(appointment, null);
+    }
+
+    private AppointmentResponseDto toResponse(Appointment appointment, String sessionNotes) {
         // Obtenemos el objeto Patient, que puede ser null si el Appointment esta BLOQUEADO
         Patient patient = appointment.getPatient();
 
@@ -80,7 +90,7 @@ public class AppointmentMapper {
                 appointment.getDate().toLocalTime().toString(), // Hora en formato HH:mm:ss
                 appointment.getStatus().toString(), // Estado del turno
                 appointment.getDuration(),
-                appointment.getSessionNotes()
+                sessionNotes
         );
     }
 
@@ -3,8 +3,8 @@ package com.SGTPI.SystemProject.mappers;
 import com.SGTPI.SystemProject.dto.ReportRequestDateDto;
 import com.SGTPI.SystemProject.dto.ReportResponseDto;
 import com.SGTPI.SystemProject.models.Report;
-import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
 import com.SGTPI.SystemProject.repositories.ReportRepository;
+import com.SGTPI.SystemProject.services.ProfessionalCache;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Path;
@@ -15,11 +15,11 @@ import java.time.LocalDateTime;
 public class ReportMapper {
 
     private final ReportRepository reportRepository;
-    private final ProfessionalRepository professionalRepository;
+    private final ProfessionalCache professionalCache;
 
-    public ReportMapper(ReportRepository reportRepository, ProfessionalRepository professionalRepository) {
+    public ReportMapper(ReportRepository reportRepository, ProfessionalCache professionalCache) {
         this.reportRepository = reportRepository;
-        this.professionalRepository = professionalRepository;
+        this.professionalCache = professionalCache;
     }
 
     //convertir ReportRequestDateDto en Report
@@ -29,7 +29,7 @@ public class ReportMapper {
                 .format(request.reportFormat())
                 .date(LocalDateTime.now())
                 .content(filePath.toString())
-                .professional(professionalRepository.findById(request.professionalId()))
+                .professional(professionalCache.reference(request.professionalId()))
                 .build();
         Report savedReport = reportRepository.save(report);
 
@@ -7,15 +7,25 @@ import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
 
 //clase Entity Appointment
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+//@DynamicUpdate: los UPDATE solo incluyen las columnas modificadas (los patch tocan uno o dos campos)
 @Entity
-@Table(name="appointment_tbl")
+@DynamicUpdate
+@Table(name="appointment_tbl", indexes = {
+        @Index(name = "idx_appointment_status_fecha", columnList = "status, fecha_hora"),
+        @Index(name = "idx_appointment_patient_fecha", columnList = "patient_id, fecha_hora"),
+        @Index(name = "idx_appointment_professional_fecha", columnList = "professional_id, fecha_hora")
+})
 public class Appointment {
     @Id
     @GeneratedValue()
@@ -27,7 +37,13 @@ public class Appointment {
     @Column(name = "fecha_hora", nullable=false,unique = true)
     private LocalDateTime date;
     
-    @Column(length=255)
+    //texto libre que solo usan las pantallas de detalle: se carga aparte, la primera vez que se lee
+    //(requiere la mejora de bytecode de Hibernate, ver pom.xml), asi las consultas de agenda no lo traen
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("notes")
+    @Column(columnDefinition = "TEXT")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String sessionNotes;
     
     @Enumerated(EnumType.STRING)
@@ -35,6 +51,11 @@ public class Appointment {
     private AppointmentStatus status;
     
     private boolean isUrgent;
+
+    //control de concurrencia optimista: dos reservas sobre la misma fila no pueden pisarse
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
     
     
     @ManyToOne
@@ -0,0 +1,8 @@
+package com.SGTPI.SystemProject.models;
+
+//carriles de envio de correos: los transaccionales (confirmaciones, cancelaciones, cambios de turno)
+//salen antes y por su propia conexion que los masivos (recordatorios)
+public enum EmailLane {
+    TRANSACCIONAL,
+    MASIVO
+}
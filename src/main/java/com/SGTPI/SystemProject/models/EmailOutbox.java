@@ -0,0 +1,55 @@
+package com.SGTPI.SystemProject.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+import lombok.*;
+
+//clase Entity EmailOutbox: correo pendiente de envio (bandeja de salida).
+//Se guarda en la misma transaccion que el cambio que lo origina y EmailOutboxService lo envia despues;
+//los que agotan los reintentos quedan en FALLIDO con el ultimo error
+@Data
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "email_outbox_tbl", indexes = {
+        @Index(name = "idx_email_outbox_status_lane_next_attempt", columnList = "status, lane, next_attempt_at")
+})
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    @ToString.Exclude
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EmailOutboxStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(columnDefinition = "VARCHAR(20) NOT NULL DEFAULT 'TRANSACCIONAL'")
+    private EmailLane lane;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+}
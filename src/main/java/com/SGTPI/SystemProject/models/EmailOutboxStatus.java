@@ -0,0 +1,8 @@
+package com.SGTPI.SystemProject.models;
+
+//estados de un correo en la bandeja de salida
+public enum EmailOutboxStatus {
+    PENDIENTE,
+    ENVIADO,
+    FALLIDO
+}
@@ -8,35 +8,53 @@ import java.util.Objects;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.apache.commons.validator.EmailValidator;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
 
 //clase Entity Patient
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+//@DynamicUpdate: partialUpdate solo escribe las columnas que cambiaron
 @Entity
-@Table(name = "patient_tbl")
+@DynamicUpdate
+@Table(name = "patient_tbl", indexes = {
+        @Index(name = "ux_patient_phone_number", columnList = "phone_number", unique = true),
+        @Index(name = "idx_patient_name", columnList = "last_name, first_name")
+})
 public class Patient {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
     
-    @Column(nullable=false)
+    @Column(name = "first_name", nullable=false)
     private String firstName;
-    @Column(nullable=false)
+    @Column(name = "last_name", nullable=false)
     private String lastName;
     
     @Column(nullable = true)
     private String email;
     
-    @Column(nullable=false)
+    @Column(name = "phone_number", nullable=false)
     private String phoneNumber;
     
+    //texto libre de la ficha: se carga aparte, la primera vez que se lee (ver Appointment.sessionNotes)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("notes")
     @Column(nullable = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String firstConsultation;
-    @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("notes")
+    @Column(nullable = true, columnDefinition = "TEXT")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String observations;
     @Column(nullable = true)
     private String usualSchedule;
@@ -13,13 +13,16 @@ import lombok.*;
 @Entity
 @AllArgsConstructor
 @RequiredArgsConstructor
-@Table(name="reminder_tbl")
+@Table(name="reminder_tbl", indexes = {
+        @Index(name = "idx_reminder_sent_send_time", columnList = "is_sent, send_time")
+})
 public class Reminder {
     
     @Id
     @GeneratedValue
     private Integer id;
     
+    @Column(name = "send_time")
     private LocalDateTime sendTime;
     
     @Enumerated(EnumType.STRING)
@@ -1,26 +1,50 @@
 package com.SGTPI.SystemProject.repositories;
 
+import com.SGTPI.SystemProject.dto.AppointmentExportRowDto;
+import com.SGTPI.SystemProject.dto.AppointmentNotificationDto;
+import com.SGTPI.SystemProject.dto.AppointmentResponseDto;
+import com.SGTPI.SystemProject.dto.AppointmentSlotDto;
+import com.SGTPI.SystemProject.dto.AppointmentStatusCountDto;
 import com.SGTPI.SystemProject.models.Appointment;
 import com.SGTPI.SystemProject.models.AppointmentStatus;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 //Repository de Appointmet
-public interface AppointmentRepository extends JpaRepository<Appointment, Integer> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Integer>, JpaSpecificationExecutor<Appointment> {
 
-    //obtener lista turnos en una fecha dada
-    @Query("SELECT a FROM Appointment a WHERE FUNCTION('DATE', a.date) = :date")
-    List<Appointment> findByDate(@Param("date") LocalDate date);
+    //obtener lista turnos en una fecha dada (rango semiabierto [00:00, 00:00 del dia siguiente) para usar el indice de fecha_hora)
+    default List<Appointment> findByDate(LocalDate date) {
+        return findByDateBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
-    @Query(value = "SELECT * FROM appointment_tbl WHERE DATE_FORMAT(fecha_hora, '%Y-%m-%d %H:%i:%s.%f') = DATE_FORMAT(:dateTime, '%Y-%m-%d %H:%i:%s')",
+    //obtener lista de turnos en el rango [start, end)
+    @Query("SELECT a FROM Appointment a WHERE a.date >= :start AND a.date < :end")
+    List<Appointment> findByDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    //obtener el turno del segundo exacto dateTime (ignorando fracciones de segundo)
+    default Optional<Appointment> findByDateTimeNative(LocalDateTime dateTime) {
+        LocalDateTime start = dateTime.truncatedTo(ChronoUnit.SECONDS);
+        return findByDateTimeRangeNative(start, start.plusSeconds(1));
+    }
+
+    @Query(value = "SELECT * FROM appointment_tbl WHERE fecha_hora >= :start AND fecha_hora < :end",
             nativeQuery = true)
-    Optional<Appointment> findByDateTimeNative(@Param("dateTime") LocalDateTime dateTime);
+    Optional<Appointment> findByDateTimeRangeNative(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     //busca en la BD si existe un turno en la fecha pasada por parametro
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END "
@@ -55,6 +79,84 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Intege
 
     Optional<Appointment> findByDateAndIdIsNotAndStatusIn(LocalDateTime date, int id, List<AppointmentStatus> statuses);
 
+    //obtener la ocupacion (id, fecha/hora, estado) de las franjas en el rango [start, end) sin cargar entidades
+    @Query("SELECT new com.SGTPI.SystemProject.dto.AppointmentSlotDto(a.id, a.date, a.status) "
+            + "FROM Appointment a WHERE a.date >= :start AND a.date < :end")
+    List<AppointmentSlotDto> findSlotsBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    //obtener los turnos existentes en cualquiera de las fechas/horas dadas (valida una serie en una sola consulta)
+    @Query("SELECT a FROM Appointment a WHERE a.date IN :dates")
+    List<Appointment> findByDateIn(@Param("dates") Collection<LocalDateTime> dates);
+
+    //obtener los datos de notificacion de los turnos con el estado dado en el rango [start, end)
+    @Query("SELECT new com.SGTPI.SystemProject.dto.AppointmentNotificationDto(a.id, a.date, p.email, p.firstName) "
+            + "FROM Appointment a JOIN a.patient p "
+            + "WHERE a.date >= :start AND a.date < :end AND a.status = :status")
+    List<AppointmentNotificationDto> findNotificationsBetween(@Param("start") LocalDateTime start,
+                                                              @Param("end") LocalDateTime end,
+                                                              @Param("status") AppointmentStatus status);
+
+    //cambiar en una sola sentencia el estado de los turnos del rango [start, end) que esten en alguno de los estados dados.
+    //Libera el paciente y las notas (igual que toggleBlock) e incrementa la version para el control optimista
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = :newStatus, a.patient = null, a.sessionNotes = null, "
+            + "a.version = a.version + 1 "
+            + "WHERE a.date >= :start AND a.date < :end AND a.status IN :statuses")
+    int updateStatusBetween(@Param("start") LocalDateTime start,
+                            @Param("end") LocalDateTime end,
+                            @Param("statuses") Collection<AppointmentStatus> statuses,
+                            @Param("newStatus") AppointmentStatus newStatus);
+
+    //resumen del rango [start, end): una fila por dia y estado, agregada en la BD sin cargar entidades
+    @Query("SELECT new com.SGTPI.SystemProject.dto.AppointmentStatusCountDto("
+            + "CAST(a.date AS LocalDate), a.status, COUNT(a), MIN(a.date), MAX(a.date)) "
+            + "FROM Appointment a WHERE a.date >= :start AND a.date < :end "
+            + "GROUP BY CAST(a.date AS LocalDate), a.status")
+    List<AppointmentStatusCountDto> countByDayAndStatus(@Param("start") LocalDateTime start,
+                                                        @Param("end") LocalDateTime end);
+
+    //recorrer los turnos del rango [start, end) como stream para exportarlos.
+    //Fetch size Integer.MIN_VALUE hace que el driver de MySQL lea fila por fila en lugar de cargar todo el resultado,
+    //y la proyeccion a DTO evita que las filas queden en el contexto de persistencia.
+    //Debe consumirse dentro de una transaccion y cerrarse al terminar
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.SGTPI.SystemProject.dto.AppointmentExportRowDto("
+            + "a.id, a.date, a.status, a.duration, a.isUrgent, p.id, p.firstName, p.lastName, p.email, p.phoneNumber) "
+            + "FROM Appointment a LEFT JOIN a.patient p "
+            + "WHERE a.date >= :start AND a.date < :end ORDER BY a.date, a.id")
+    Stream<AppointmentExportRowDto> streamForExport(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    //lista de turnos del rango [start, end) proyectada directo al DTO de respuesta (una sola sentencia, sin entidades).
+    //No incluye las notas de sesion: se leen por turno con findSessionNotesById
+    @Query("SELECT new com.SGTPI.SystemProject.dto.AppointmentResponseDto("
+            + "a.id, p.id, p.firstName, p.lastName, p.phoneNumber, p.email, a.date, a.status, a.duration) "
+            + "FROM Appointment a LEFT JOIN a.patient p "
+            + "WHERE a.date >= :start AND a.date < :end ORDER BY a.date")
+    List<AppointmentResponseDto> findResponsesBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    //historial de un paciente, del mas reciente al mas antiguo, proyectado al DTO de respuesta.
+    //Pagina por cursor: devuelve los turnos anteriores a (beforeDate, beforeId) usando el indice (patient_id, fecha_hora),
+    //sin inicializar la coleccion Patient.appointment
+    @Query("SELECT new com.SGTPI.SystemProject.dto.AppointmentResponseDto("
+            + "a.id, p.id, p.firstName, p.lastName, p.phoneNumber, p.email, a.date, a.status, a.duration) "
+            + "FROM Appointment a JOIN a.patient p "
+            + "WHERE p.id = :patientId AND a.status IN :statuses "
+            + "AND (a.date < :beforeDate OR (a.date = :beforeDate AND a.id < :beforeId)) "
+            + "ORDER BY a.date DESC, a.id DESC")
+    List<AppointmentResponseDto> findPatientHistory(@Param("patientId") Integer patientId,
+                                                    @Param("statuses") Collection<AppointmentStatus> statuses,
+                                                    @Param("beforeDate") LocalDateTime beforeDate,
+                                                    @Param("beforeId") Integer beforeId,
+                                                    Limit limit);
+
+    //notas de sesion de un turno (columna diferida: las listas no la traen)
+    @Query("SELECT a.sessionNotes FROM Appointment a WHERE a.id = :id")
+    Optional<String> findSessionNotesById(@Param("id") Integer id);
+
     //obtener lista de turnos cancelados
     @Query("SELECT a FROM Appointment a WHERE a.status = CANCELADO")
     List<Appointment> findByStatusCanceled();
@@ -0,0 +1,69 @@
+package com.SGTPI.SystemProject.repositories;
+
+import com.SGTPI.SystemProject.models.Appointment;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import jakarta.persistence.criteria.JoinType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.springframework.data.jpa.domain.Specification;
+
+//filtros reutilizables (Specification) para las consultas de turnos.
+//Cada filtro nulo/vacio no agrega condicion; todos usan columnas cubiertas por los indices de appointment_tbl
+public final class AppointmentSpecifications {
+
+    private AppointmentSpecifications() {
+    }
+
+    //turnos en alguno de los estados dados
+    public static Specification<Appointment> statusIn(Collection<AppointmentStatus> statuses) {
+        return (root, query, cb) -> statuses == null || statuses.isEmpty()
+                ? null
+                : root.get("status").in(statuses);
+    }
+
+    //turnos desde from (inclusive)
+    public static Specification<Appointment> dateFrom(LocalDateTime from) {
+        return (root, query, cb) -> from == null ? null : cb.greaterThanOrEqualTo(root.get("date"), from);
+    }
+
+    //turnos antes de to (exclusivo)
+    public static Specification<Appointment> dateBefore(LocalDateTime to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThan(root.get("date"), to);
+    }
+
+    //turnos de un paciente
+    public static Specification<Appointment> patientId(Integer patientId) {
+        return (root, query, cb) -> patientId == null ? null : cb.equal(root.get("patient").get("id"), patientId);
+    }
+
+    //turnos urgentes / no urgentes
+    public static Specification<Appointment> urgent(Boolean urgent) {
+        return (root, query, cb) -> urgent == null ? null : cb.equal(root.get("isUrgent"), urgent);
+    }
+
+    //turnos posteriores (o anteriores si descending) a la posicion (date, id) del cursor
+    public static Specification<Appointment> after(LocalDateTime date, Integer id, boolean descending) {
+        return (root, query, cb) -> {
+            if (date == null || id == null) {
+                return null;
+            }
+            return descending
+                    ? cb.or(cb.lessThan(root.get("date"), date),
+                            cb.and(cb.equal(root.get("date"), date), cb.lessThan(root.get("id"), id)))
+                    : cb.or(cb.greaterThan(root.get("date"), date),
+                            cb.and(cb.equal(root.get("date"), date), cb.greaterThan(root.get("id"), id)));
+        };
+    }
+
+    //trae paciente, profesional y recordatorio en la misma consulta (evita un select por fila)
+    public static Specification<Appointment> fetchAssociations() {
+        return (root, query, cb) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                root.fetch("patient", JoinType.LEFT);
+                root.fetch("professional", JoinType.LEFT);
+                root.fetch("reminder", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
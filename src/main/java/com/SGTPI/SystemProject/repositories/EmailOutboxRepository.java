@@ -0,0 +1,41 @@
+package com.SGTPI.SystemProject.repositories;
+
+import com.SGTPI.SystemProject.models.EmailLane;
+import com.SGTPI.SystemProject.models.EmailOutbox;
+import com.SGTPI.SystemProject.models.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+//Repository de la bandeja de salida de correos
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Integer> {
+    //reclamar un bloque de correos pendientes del carril lane cuyo proximo intento ya vencio, en orden de llegada.
+    //SKIP LOCKED saltea los que esta enviando otro nodo; el bloqueo dura hasta el fin de la transaccion
+    @Query(value = "SELECT id FROM email_outbox_tbl WHERE status = 'PENDIENTE' AND lane = :lane "
+            + "AND next_attempt_at <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Integer> claimPending(@Param("lane") String lane, @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    //correos dados en orden de llegada
+    @Query("SELECT e FROM EmailOutbox e WHERE e.id IN :ids ORDER BY e.id")
+    List<EmailOutbox> findByIdIn(@Param("ids") Collection<Integer> ids);
+
+    //cantidad de correos de un carril en un estado (metricas)
+    long countByStatusAndLane(EmailOutboxStatus status, EmailLane lane);
+
+    //fecha del correo pendiente mas antiguo del carril (metricas)
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutbox e WHERE e.status = PENDIENTE AND e.lane = :lane")
+    Optional<LocalDateTime> findOldestPendingCreatedAt(@Param("lane") EmailLane lane);
+
+    //borrar los correos enviados antes de before
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = ENVIADO AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -1,7 +1,13 @@
 package com.SGTPI.SystemProject.repositories;
 
+import com.SGTPI.SystemProject.dto.PatientDto;
 import com.SGTPI.SystemProject.models.Patient;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -26,4 +32,19 @@ public interface PatientRepository extends JpaRepository<Patient, Integer> {
     @Query("SELECT p FROM Patient p WHERE p.phoneNumber = :phoneNumber")
     Optional<Patient> findByPhoneNumber(@Param("phoneNumber") String phoneNumber);
 
+    //de los telefonos dados, los que ya pertenecen a un paciente (usa el indice unico de phone_number)
+    @Query("SELECT p.phoneNumber FROM Patient p WHERE p.phoneNumber IN :phoneNumbers")
+    Set<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
+    //todos los pacientes proyectados al DTO (carga del indice de busqueda, sin entidades)
+    @Query("SELECT new com.SGTPI.SystemProject.dto.PatientDto(p.id, p.firstName, p.lastName, p.email, p.phoneNumber) "
+            + "FROM Patient p")
+    List<PatientDto> findAllForIndex();
+
+    //pagina de pacientes ordenada por apellido, nombre e id (usa el indice de nombre)
+    @Query(value = "SELECT new com.SGTPI.SystemProject.dto.PatientDto(p.id, p.firstName, p.lastName, p.email, p.phoneNumber) "
+            + "FROM Patient p ORDER BY p.lastName, p.firstName, p.id",
+            countQuery = "SELECT COUNT(p) FROM Patient p")
+    Page<PatientDto> findPage(Pageable pageable);
+
 }
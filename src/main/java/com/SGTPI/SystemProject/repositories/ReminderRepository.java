@@ -1,13 +1,63 @@
 package com.SGTPI.SystemProject.repositories;
 
+import com.SGTPI.SystemProject.dto.ReminderScheduleDto;
 import com.SGTPI.SystemProject.models.Reminder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 //Repository de recordatorio
 @Repository
 public interface ReminderRepository extends JpaRepository<Reminder, Integer> {
-    //obtener lista de recordatorios que no hayan sido enviados
-    List<Reminder> findAllByIsSentFalse();
+    //reclamar un bloque de recordatorios a enviar: no enviados, con hora de envio vencida, turno con paciente,
+    //no cancelado y posterior a windowEnd (fuera de la ventana de cancelacion), con id mayor a afterId.
+    //FOR UPDATE OF r SKIP LOCKED bloquea solo las filas de reminder_tbl hasta el fin de la transaccion y saltea
+    //las que ya reclamo otro nodo, asi cada replica procesa recordatorios distintos. Usa el indice (is_sent, send_time)
+    @Query(value = "SELECT r.id FROM reminder_tbl r JOIN appointment_tbl a ON a.id = r.appointment_id "
+            + "WHERE r.is_sent = false AND r.send_time <= :now AND r.id > :afterId "
+            + "AND a.fecha_hora > :windowEnd AND a.status <> 'CANCELADO' AND a.patient_id IS NOT NULL "
+            + "ORDER BY r.id LIMIT :limit FOR UPDATE OF r SKIP LOCKED", nativeQuery = true)
+    List<Integer> claimDue(@Param("now") LocalDateTime now, @Param("windowEnd") LocalDateTime windowEnd,
+                           @Param("afterId") Integer afterId, @Param("limit") int limit);
+
+    //recordatorios dados con su turno y paciente en la misma consulta
+    @Query("SELECT r FROM Reminder r JOIN FETCH r.appointment a JOIN FETCH a.patient WHERE r.id IN :ids ORDER BY r.id")
+    List<Reminder> findWithAppointmentByIdIn(@Param("ids") Collection<Integer> ids);
+
+    //marcar como enviados los recordatorios dados en una sola sentencia
+    @Modifying
+    @Query("UPDATE Reminder r SET r.isSent = true WHERE r.id IN :ids")
+    int markSentByIds(@Param("ids") Collection<Integer> ids);
+
+    //recordatorios no enviados con hora de envio hasta until, para programarlos en ReminderTimer
+    @Query("SELECT new com.SGTPI.SystemProject.dto.ReminderScheduleDto(r.id, r.appointment.id, r.sendTime) "
+            + "FROM Reminder r WHERE r.isSent = false AND r.sendTime <= :until AND r.appointment IS NOT NULL")
+    List<ReminderScheduleDto> findPendingUntil(@Param("until") LocalDateTime until);
+
+    //descartar (marcar como enviados) los recordatorios vencidos que ya no se van a enviar: sin turno o sin paciente,
+    //con el turno cancelado o dentro de la ventana de cancelacion. Asi no vuelven a leerse en cada ejecucion
+    @Modifying
+    @Query("UPDATE Reminder r SET r.isSent = true WHERE r.isSent = false AND r.sendTime <= :now "
+            + "AND (r.appointment IS NULL OR r.appointment.id IN (SELECT a.id FROM Appointment a "
+            + "WHERE a.date <= :windowEnd OR a.status = CANCELADO OR a.patient IS NULL))")
+    int markStale(@Param("now") LocalDateTime now, @Param("windowEnd") LocalDateTime windowEnd);
+
+    //obtener el recordatorio de un turno (appointment_id es unico)
+    @Query("SELECT r FROM Reminder r WHERE r.appointment.id = :appointmentId")
+    Optional<Reminder> findByAppointmentId(@Param("appointmentId") Integer appointmentId);
+
+    //obtener los recordatorios de varios turnos en una sola consulta
+    @Query("SELECT r FROM Reminder r WHERE r.appointment.id IN :appointmentIds")
+    List<Reminder> findByAppointmentIdIn(@Param("appointmentIds") Collection<Integer> appointmentIds);
+
+    //marcar como enviados (descartar) los recordatorios pendientes de los turnos dados
+    @Modifying
+    @Query("UPDATE Reminder r SET r.isSent = true WHERE r.isSent = false AND r.appointment.id IN :appointmentIds")
+    int markSentByAppointmentIds(@Param("appointmentIds") Collection<Integer> appointmentIds);
 }
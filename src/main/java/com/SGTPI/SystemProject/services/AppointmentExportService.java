@@ -0,0 +1,135 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.AppointmentExportRowDto;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//exportacion completa de turnos escrita fila por fila (NDJSON o CSV).
+//Las filas se leen en streaming desde la BD y se escriben a medida que llegan, sin armar listas en memoria
+@Service
+public class AppointmentExportService {
+
+    //formatos de exportacion soportados
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    //limites usados cuando no se indica rango (toda la tabla)
+    private static final LocalDateTime EXPORT_MIN_DATE = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime EXPORT_MAX_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    //cada cuantas filas se vacia el buffer hacia el cliente
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final String CSV_HEADER =
+            "id,fecha_hora,estado,duracion,urgente,paciente_id,nombre,apellido,email,telefono";
+
+    private final AppointmentRepository appRepository;
+
+    private final ObjectWriter jsonWriter;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AppointmentExportService(AppointmentRepository appRepository, ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.appRepository = appRepository;
+        // cada fila en una linea: el writer no debe cerrar el stream de salida
+        // ni vaciarlo despues de cada fila (lo hace el buffer al llenarse)
+        this.jsonWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    //escribir en out los turnos del rango [from, to) (null = sin limite) en el formato dado
+    public void export(Format format, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        LocalDateTime start = from != null ? from : EXPORT_MIN_DATE;
+        LocalDateTime end = to != null ? to : EXPORT_MAX_DATE;
+
+        // el stream necesita la conexion abierta hasta leer la ultima fila
+        readOnlyTransaction.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try (Stream<AppointmentExportRowDto> rows = appRepository.streamForExport(start, end)) {
+                if (format == Format.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                // los primeros bytes salen antes de terminar la consulta
+                writer.flush();
+
+                int written = 0;
+                Iterator<AppointmentExportRowDto> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    AppointmentExportRowDto row = iterator.next();
+                    if (format == Format.CSV) {
+                        writeCsv(writer, row);
+                    } else {
+                        jsonWriter.writeValue(writer, row);
+                        writer.write('\n');
+                    }
+                    if (++written % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // el cliente corto la descarga
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeCsv(Writer writer, AppointmentExportRowDto row) throws IOException {
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writer.write(row.date().format(DATE_TIME_FORMAT));
+        writer.write(',');
+        writer.write(row.status() != null ? row.status().name() : "");
+        writer.write(',');
+        writer.write(row.duration() != null ? row.duration().toString() : "");
+        writer.write(',');
+        writer.write(Boolean.toString(row.urgent()));
+        writer.write(',');
+        writer.write(row.patientId() != null ? row.patientId().toString() : "");
+        writer.write(',');
+        writer.write(csvField(row.patientName()));
+        writer.write(',');
+        writer.write(csvField(row.patientLastName()));
+        writer.write(',');
+        writer.write(csvField(row.patientEmail()));
+        writer.write(',');
+        writer.write(csvField(row.patientPhoneNumber()));
+        writer.write('\n');
+    }
+
+    //escapar un campo de texto segun RFC 4180
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
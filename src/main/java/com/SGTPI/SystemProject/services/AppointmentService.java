@@ -1,38 +1,61 @@
 package com.SGTPI.SystemProject.services;
 
+import com.SGTPI.SystemProject.dto.AppointmentDaySummaryDto;
+import com.SGTPI.SystemProject.dto.AppointmentNotificationDto;
+import com.SGTPI.SystemProject.dto.AppointmentPageDto;
+import com.SGTPI.SystemProject.dto.AppointmentPatchDto;
+import com.SGTPI.SystemProject.dto.AppointmentQueryDto;
+import com.SGTPI.SystemProject.dto.AppointmentRangeRequestDto;
+import com.SGTPI.SystemProject.dto.AppointmentRangeResultDto;
 import com.SGTPI.SystemProject.dto.AppointmentRequestDto;
 import com.SGTPI.SystemProject.dto.AppointmentResponseDto;
-import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.dto.AppointmentSeriesRequestDto;
+import com.SGTPI.SystemProject.dto.AppointmentSlotDto;
+import com.SGTPI.SystemProject.dto.AppointmentStatusCountDto;
 import com.SGTPI.SystemProject.exceptions.AppointmentBlockedException;
 import com.SGTPI.SystemProject.exceptions.AppointmentCancellationException;
 import com.SGTPI.SystemProject.exceptions.AppointmentConflictException;
+import com.SGTPI.SystemProject.exceptions.PatientNotFoundException;
 import com.SGTPI.SystemProject.mappers.AppointmentMapper;
 import com.SGTPI.SystemProject.mappers.PatientMapper;
 import com.SGTPI.SystemProject.models.*;
 import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import com.SGTPI.SystemProject.repositories.AppointmentSpecifications;
 import com.SGTPI.SystemProject.repositories.PatientRepository;
-import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
 import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import com.SGTPI.SystemProject.utils.AppointmentCursor;
+import com.SGTPI.SystemProject.utils.EmailBatchEvent;
 import com.SGTPI.SystemProject.utils.EmailEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.SGTPI.SystemProject.utils.WorkingHours;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 //Logica de negocio de Appointment
 @Service
@@ -42,14 +65,19 @@ public class AppointmentService {
     private final PatientRepository patientRepository;
     private final AppointmentRepository appRepository;
 
-    private final ObjectMapper objectMapper;
-
     private final PatientMapper patientMapper;
 
-    private final ProfessionalRepository professionalRepository;
+    private final ProfessionalCache professionalCache;
 
     private final ReminderRepository reminderRepository;
 
+    private final SlotOccupancyIndex slotIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PatientCache patientCache;
+
+    private final ReminderTimer reminderTimer;
 
     @Autowired
     private EmailService emailService;
@@ -59,20 +87,44 @@ public class AppointmentService {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
 
+    //reintentos ante timeouts de bloqueo/deadlocks al reservar
+    private static final int MAX_BOOKING_ATTEMPTS = 3;
+    private static final long BOOKING_RETRY_BACKOFF_MS = 50;
+
+    //cantidad maxima de ocurrencias de una serie recurrente
+    private static final int MAX_SERIES_OCCURRENCES = 52;
+
+    //tamaño de pagina por defecto y maximo de la consulta de turnos
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    //posicion inicial del historial de un paciente (posterior a cualquier turno)
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    //cantidad maxima de dias que puede abarcar una operacion sobre un rango de franjas
+    private static final int MAX_RANGE_DAYS = 62;
+
     public AppointmentService(AppointmentMapper appMapper, PatientRepository patientRepository, AppointmentRepository appRepository,
-                              ObjectMapper objectMapper, PatientMapper patientMapper,
-                              ProfessionalRepository professionalRepository,ReminderRepository reminderRepository) {
+                              PatientMapper patientMapper,
+                              ProfessionalCache professionalCache,ReminderRepository reminderRepository,
+                              SlotOccupancyIndex slotIndex, TransactionTemplate transactionTemplate,
+                              PatientCache patientCache, ReminderTimer reminderTimer) {
         this.appMapper = appMapper;
         this.patientRepository = patientRepository;
         this.appRepository = appRepository;
-        this.objectMapper = objectMapper;
         this.patientMapper = patientMapper;
-        this.professionalRepository = professionalRepository;
+        this.professionalCache = professionalCache;
         this.reminderRepository = reminderRepository;
+        this.slotIndex = slotIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.patientCache = patientCache;
+        this.reminderTimer = reminderTimer;
     }
 
-    //crear turno
-    @Transactional
+    //crear turno.
+    //La reserva corre en su propia transaccion (ver inBookingTransaction): si otro usuario ocupa la franja
+    //al mismo tiempo, la violacion de la restriccion unique se traduce en AppointmentConflictException
+    //y el correo de confirmacion se guarda en la bandeja de salida junto con la reserva: solo sale si la reserva confirma.
     public AppointmentResponseDto createAppointment(AppointmentRequestDto dto) {
         if (dto == null) {
             throw new IllegalArgumentException("El DTO de cita no puede ser nulo");
@@ -87,50 +139,99 @@ public class AppointmentService {
         // --- LÓGICA DE VALIDACIÓN PARA CREAR TURNO ---
         LocalDateTime requestedDateTime = appointment.getDate(); // Obtiene la fecha y hora del turno a crear
 
-        // Validar si ya existe un turno CONFIRMADO en esa fecha/hora
-        Optional<Appointment> existingConfirmedAppointment = appRepository.findByDateAndStatus(
-                requestedDateTime,
-                AppointmentStatus.CONFIRMADO
-        );
-        if (existingConfirmedAppointment.isPresent()) {
-            throw new AppointmentConflictException("Ya existe un turno confirmado en la fecha y hora solicitadas.");
+        // Validar contra el indice en memoria que la franja no este CONFIRMADA, BLOQUEADA o CANCELADA
+        Optional<SlotOccupancyIndex.Slot> occupiedSlot = slotIndex.find(requestedDateTime);
+        if (occupiedSlot.isPresent()) {
+            switch (occupiedSlot.get().status()) {
+                case CONFIRMADO:
+                    throw new AppointmentConflictException("Ya existe un turno confirmado en la fecha y hora solicitadas.");
+                case BLOQUEADO:
+                    throw new AppointmentBlockedException("La franja horaria solicitada está bloqueada y no se puede asignar un turno.");
+                case CANCELADO:
+                    throw new AppointmentBlockedException("Hay un turno cancelado en este horario y no se puede asignar un turno.");
+                default:
+                    break;
+            }
         }
 
-        // Verificar que la franja horaria no este BLOQUEADA
-        Optional<Appointment> existingBlockedAppointment = appRepository.findByDateAndStatus(
-                requestedDateTime,
-                AppointmentStatus.BLOQUEADO
-        );
-        if (existingBlockedAppointment.isPresent()) {
-            throw new AppointmentBlockedException("La franja horaria solicitada está bloqueada y no se puede asignar un turno.");
+        if (appointment.getPatient() == null || appointment.getPatient().getId() == null) {
+            throw new IllegalArgumentException("Debe seleccionar un paciente existente para asignar el turno.");
         }
 
-        // Verificar que no haya un turno cancelado en ese horario
-        Optional<Appointment> existingCanceledAppointment = appRepository.findByDateAndStatus(
-                requestedDateTime,
-                AppointmentStatus.CANCELADO
-        );
-        if (existingCanceledAppointment.isPresent()) {
-            throw new AppointmentBlockedException("Hay un turno cancelado en este horario y no se puede asignar un turno.");
-        }
+        Appointment savedAppointment = inBookingTransaction(requestedDateTime, () -> {
+            // cada intento parte de una entidad nueva: la del intento revertido ya quedo con id y version asignados
+            Appointment attempt = appMapper.requestToAppointment(dto);
+            Appointment booked = bookSlot(attempt, occupiedSlot.map(SlotOccupancyIndex.Slot::id).orElse(null));
+            publishConfirmationEmail(booked);
+            return booked;
+        });
 
-        if (appointment.getPatient() == null || appointment.getPatient().getId() == null) {
-            throw new IllegalArgumentException("Debe seleccionar un paciente existente para asignar el turno.");
+        // Convertir la entidad guardada a DTO de respuesta
+        return appMapper.entityToResponse(savedAppointment);
+    }
+
+    //publica el correo de confirmacion de un turno
+    private void publishConfirmationEmail(Appointment savedAppointment) {
+        if (savedAppointment.getPatient() != null && savedAppointment.getPatient().getEmail() != null) {
+            // Lógica de generación del correo
+            String to = savedAppointment.getPatient().getEmail();
+            String subject = "Confirmación de Cita";
+            StringBuilder body = new StringBuilder();
+            body.append("<h1>¡Hola, ").append(savedAppointment.getPatient().getFirstName()).append("!</h1>");
+            body.append("<p>Tu turno ha sido <strong>CONFIRMADO</strong></p>");
+            body.append("<ul>");
+            body.append("<li><strong>Fecha y Hora:</strong> ").append(savedAppointment.getDate().format(FORMATTER)).append("</li>");
+            body.append("</ul>");
+            body.append("<p>Atentamente, Equipo Médico.</p>");
+
+            // En lugar de llamar directamente al servicio, publicamos un evento
+            eventPublisher.publishEvent(new EmailEvent(this, to, subject, body.toString()));
         }
+    }
 
-        Patient existingPatient = patientRepository.findById(appointment.getPatient().getId())
+    //guarda el turno (o reutiliza la franja DISPONIBLE availableSlotId) y programa su recordatorio
+    private Appointment bookSlot(Appointment appointment, Integer availableSlotId) {
+        Patient existingPatient = patientCache.findById(appointment.getPatient().getId())
                 .orElseThrow(() -> new IllegalArgumentException("Paciente asociado no encontrado con ID: " + appointment.getPatient().getId()));
         appointment.setPatient(existingPatient);
 
-
-        Professional defaultProfessional = professionalRepository.findById(1);
+        Professional defaultProfessional = professionalCache.reference();
         appointment.setProfessional(defaultProfessional);
 
-        // Guardar la entidad
-        Appointment savedAppointment = appRepository.save(appointment);
+        Appointment toSave = appointment;
+        if (availableSlotId != null) {
+            // La franja ya existe como DISPONIBLE (fue liberada o desbloqueada): se ocupa esa misma fila.
+            // Si otro usuario la toma primero, @Version hace fallar esta escritura.
+            toSave = appRepository.findById(availableSlotId)
+                    .filter(existing -> existing.getStatus() == AppointmentStatus.DISPONIBLE
+                            && existing.getDate().equals(appointment.getDate()))
+                    .orElseThrow(() -> new AppointmentConflictException("La fecha y hora solicitadas acaban de ser ocupadas por otro turno."));
+            toSave.setStatus(AppointmentStatus.CONFIRMADO);
+            toSave.setPatient(existingPatient);
+            toSave.setProfessional(defaultProfessional);
+            toSave.setDuration(appointment.getDuration());
+            toSave.setSessionNotes(appointment.getSessionNotes());
+        }
+
+        // Guardar la entidad; el flush hace que un choque con la restriccion unique falle aca y no al confirmar
+        Appointment savedAppointment = appRepository.saveAndFlush(toSave);
+        slotIndex.recordAfterCommit(savedAppointment);
 
+        Reminder previousReminder = availableSlotId != null
+                ? reminderRepository.findByAppointmentId(savedAppointment.getId()).orElse(null)
+                : null;
+        Reminder reminder = prepareReminder(savedAppointment, previousReminder);
+        if (reminder != null) {
+            reminderRepository.save(reminder);
+            reminderTimer.scheduleAfterCommit(reminder);
+        }
+        return savedAppointment;
+    }
 
-        // --- LÓGICA DEL RECORDATORIO ---
+    //prepara el recordatorio del turno si faltan mas de 48hs (null si no hay nada que guardar).
+    //previousReminder es el recordatorio de una reserva anterior de la misma franja,
+    //que se reutiliza porque appointment_id es unico en reminder_tbl
+    private Reminder prepareReminder(Appointment savedAppointment, Reminder previousReminder) {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime reminderSendThreshold = savedAppointment.getDate().minusHours(48);
         LocalDateTime reminderCreationThreshold = savedAppointment.getDate().minusHours(72);
@@ -139,177 +240,320 @@ public class AppointmentService {
             // El turno está a más de 48 horas de distancia, podemos enviar un recordatorio.
             LocalDateTime sendTime = now.isBefore(reminderCreationThreshold) ? reminderCreationThreshold : now;
 
-            Reminder newReminder = Reminder.builder()
-                    .appointment(savedAppointment)
-                    .sendTime(sendTime)
-                    .method(sendMethod.EMAIL)
-                    .isSent(false)
-                    .build();
+            Reminder reminder = previousReminder != null
+                    ? previousReminder
+                    : Reminder.builder()
+                            .appointment(savedAppointment)
+                            .method(sendMethod.EMAIL)
+                            .build();
+            reminder.setSendTime(sendTime);
+            reminder.setSent(false);
+            reminder.setConfirmed(false);
+            return reminder;
+        }
 
-            reminderRepository.save(newReminder);
+        if (previousReminder != null) {
+            // el recordatorio de la reserva anterior ya no corresponde
+            previousReminder.setSent(true);
+            return previousReminder;
         }
+        return null;
+    }
 
+    //crear una serie de turnos recurrentes (mismo dia de la semana y hora).
+    //Todas las ocurrencias se validan con una sola consulta y se guardan, junto con sus recordatorios,
+    //en lotes JDBC dentro de una unica transaccion; se envia un solo correo de resumen.
+    public List<AppointmentResponseDto> createAppointmentSeries(AppointmentSeriesRequestDto dto) {
+        if (dto == null || dto.fecha() == null || dto.hora() == null) {
+            throw new IllegalArgumentException("La serie debe indicar fecha y hora de la primera ocurrencia");
+        }
 
+        List<LocalDateTime> dates = dto.occurrenceDates(MAX_SERIES_OCCURRENCES);
+        if (dates.isEmpty()) {
+            throw new IllegalArgumentException("La serie no tiene ocurrencias");
+        }
+        if (dates.get(0).isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("La primera ocurrencia de la serie debe ser futura");
+        }
 
-        if (savedAppointment.getPatient() != null && savedAppointment.getPatient().getEmail() != null) {
-            // Lógica de generación del correo
-            String to = savedAppointment.getPatient().getEmail();
-            String subject = "Confirmación de Cita";
+        // Resolver paciente y profesional una sola vez para toda la serie
+        Appointment template = appMapper.requestToAppointment(new AppointmentRequestDto(
+                dto.duration(), dto.fecha(), dto.hora(), dto.patient(), dto.sessionNotes()));
+        if (template == null || template.getPatient() == null || template.getPatient().getId() == null) {
+            throw new IllegalArgumentException("Debe seleccionar un paciente existente para asignar la serie.");
+        }
+
+        List<Appointment> saved = inBookingTransaction(dates, () -> {
+            List<Appointment> booked = bookSeries(template, dates);
+            publishSeriesConfirmationEmail(booked);
+            return booked;
+        });
+
+        return saved.stream()
+                .map(appointment -> appMapper.entityToResponse(appointment))
+                .collect(Collectors.toList());
+    }
+
+    //publica un solo correo con todas las fechas de la serie
+    private void publishSeriesConfirmationEmail(List<Appointment> saved) {
+        Patient patient = saved.get(0).getPatient();
+        if (patient != null && patient.getEmail() != null) {
+            // Un solo correo con todas las fechas de la serie
+            String subject = "Confirmación de Turnos";
             StringBuilder body = new StringBuilder();
-            body.append("<h1>¡Hola, ").append(appointment.getPatient().getFirstName()).append("!</h1>");
-            body.append("<p>Tu turno ha sido <strong>CONFIRMADO</strong></p>");
+            body.append("<h1>¡Hola, ").append(patient.getFirstName()).append("!</h1>");
+            body.append("<p>Tus ").append(saved.size()).append(" turnos han sido <strong>CONFIRMADOS</strong></p>");
             body.append("<ul>");
-            body.append("<li><strong>Fecha y Hora:</strong> ").append(appointment.getDate().format(FORMATTER)).append("</li>");
+            for (Appointment app : saved) {
+                body.append("<li><strong>Fecha y Hora:</strong> ").append(app.getDate().format(FORMATTER)).append("</li>");
+            }
             body.append("</ul>");
             body.append("<p>Atentamente, Equipo Médico.</p>");
 
-            // En lugar de llamar directamente al servicio, publicamos un evento
-            eventPublisher.publishEvent(new EmailEvent(this, to, subject, body.toString()));
+            eventPublisher.publishEvent(new EmailEvent(this, patient.getEmail(), subject, body.toString()));
         }
-
-        // Convertir la entidad guardada a DTO de respuesta
-        return appMapper.entityToResponse(savedAppointment);
     }
 
+    //valida y guarda todas las ocurrencias de la serie (se ejecuta dentro de inBookingTransaction)
+    private List<Appointment> bookSeries(Appointment template, List<LocalDateTime> dates) {
+        Patient patient = patientCache.findById(template.getPatient().getId())
+                .orElseThrow(() -> new IllegalArgumentException("Paciente asociado no encontrado con ID: " + template.getPatient().getId()));
+        Professional defaultProfessional = professionalCache.reference();
 
-
-    //lista de turnos
-    public List<AppointmentResponseDto> getAppointments() {
-        return appRepository.findAll()
+        // Una sola consulta para todas las ocurrencias
+        Map<LocalDateTime, Appointment> existing = appRepository.findByDateIn(dates)
                 .stream()
-                .map(appointment -> appMapper.entityToResponse(appointment))
+                .collect(Collectors.toMap(Appointment::getDate, app -> app));
+
+        List<String> conflicts = existing.values().stream()
+                .filter(app -> app.getStatus() != AppointmentStatus.DISPONIBLE)
+                .map(app -> app.getDate().format(FORMATTER) + " (" + app.getStatus().name() + ")")
+                .sorted()
                 .collect(Collectors.toList());
+        if (!conflicts.isEmpty()) {
+            throw new AppointmentConflictException("Las siguientes fechas de la serie ya están ocupadas: " + String.join(", ", conflicts));
+        }
+
+        List<Appointment> appointments = new ArrayList<>(dates.size());
+        for (LocalDateTime date : dates) {
+            // las franjas DISPONIBLES existentes se reutilizan; el resto se crean
+            Appointment app = existing.getOrDefault(date, new Appointment());
+            app.setDate(date);
+            app.setStatus(AppointmentStatus.CONFIRMADO);
+            app.setDuration(template.getDuration());
+            app.setSessionNotes(template.getSessionNotes());
+            app.setPatient(patient);
+            app.setProfessional(defaultProfessional);
+            appointments.add(app);
+        }
+        List<Appointment> saved = appRepository.saveAll(appointments);
+        appRepository.flush();
+
+        // recordatorios previos de las franjas reutilizadas, en una sola consulta
+        List<Integer> reusedIds = existing.values().stream().map(Appointment::getId).collect(Collectors.toList());
+        Map<Integer, Reminder> previousReminders = reusedIds.isEmpty()
+                ? Map.of()
+                : reminderRepository.findByAppointmentIdIn(reusedIds).stream()
+                        .collect(Collectors.toMap(reminder -> reminder.getAppointment().getId(), reminder -> reminder));
+
+        List<Reminder> reminders = new ArrayList<>();
+        for (Appointment app : saved) {
+            Reminder reminder = prepareReminder(app, previousReminders.get(app.getId()));
+            if (reminder != null) {
+                reminders.add(reminder);
+            }
+            slotIndex.recordAfterCommit(app);
+        }
+        reminderRepository.saveAll(reminders);
+        reminders.forEach(reminderTimer::scheduleAfterCommit);
+
+        return saved;
+    }
+
+    //ejecuta una reserva en su propia transaccion.
+    //Las violaciones de la restriccion unique de fecha_hora y los conflictos de @Version se traducen en
+    //AppointmentConflictException (solo se revierte la reserva), y los timeouts de bloqueo transitorios
+    //se reintentan hasta MAX_BOOKING_ATTEMPTS veces.
+    private <T> T inBookingTransaction(LocalDateTime slot, Supplier<T> booking) {
+        return inBookingTransaction(List.of(slot), booking);
+    }
+
+    private <T> T inBookingTransaction(List<LocalDateTime> slots, Supplier<T> booking) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> booking.get());
+            } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+                // otra reserva gano la franja: se relee el dia en la proxima consulta
+                slots.forEach(slot -> slotIndex.evict(slot.toLocalDate()));
+                throw new AppointmentConflictException("La fecha y hora solicitadas acaban de ser ocupadas por otro turno.");
+            } catch (TransientDataAccessException e) {
+                if (attempt >= MAX_BOOKING_ATTEMPTS) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(BOOKING_RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
     }
 
-    //lista de turnos por fecha
+
+
+    //consulta paginada de turnos con filtros, ordenada por (fecha/hora, id).
+    //Paginacion por cursor (keyset): cada pagina continua despues del ultimo turno de la anterior,
+    //asi el costo depende del tamaño de pagina y no de la cantidad de turnos historicos
+    public AppointmentPageDto queryAppointments(AppointmentQueryDto query) {
+        int size = query.size() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(query.size(), MAX_PAGE_SIZE);
+        AppointmentCursor cursor = AppointmentCursor.decode(query.cursor());
+
+        Specification<Appointment> spec = Specification.where(AppointmentSpecifications.statusIn(query.statuses()))
+                .and(AppointmentSpecifications.dateFrom(query.from()))
+                .and(AppointmentSpecifications.dateBefore(query.to()))
+                .and(AppointmentSpecifications.patientId(query.patientId()))
+                .and(AppointmentSpecifications.urgent(query.urgent()))
+                .and(cursor == null ? null : AppointmentSpecifications.after(cursor.date(), cursor.id(), query.descending()))
+                .and(AppointmentSpecifications.fetchAssociations());
+
+        Sort.Direction direction = query.descending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // se pide un turno de mas para saber si existe una pagina siguiente
+        List<Appointment> rows = appRepository.findBy(spec, q -> q
+                .sortBy(Sort.by(direction, "date").and(Sort.by(direction, "id")))
+                .limit(size + 1)
+                .all());
+
+        boolean hasNext = rows.size() > size;
+        List<Appointment> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Appointment last = page.get(page.size() - 1);
+            nextCursor = new AppointmentCursor(last.getDate(), last.getId()).encode();
+        }
+
+        return new AppointmentPageDto(page.stream().map(appMapper::entityToListItem).toList(), nextCursor);
+    }
+
+    //lista de turnos por fecha (proyeccion: una sola consulta, sin cargar pacientes por separado)
     public List<AppointmentResponseDto> getAppointmentsByDate(LocalDate date) {
-        return appRepository.findByDate(date)
-                .stream()
-                .map(appointment -> appMapper.entityToResponse(appointment))
-                .collect(Collectors.toList());
+        return appRepository.findResponsesBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
     }
 
-    //lista de turnos por id
-    public List<AppointmentResponseDto> getAppointmentsById(int id) {
-        Optional<Patient> patient = patientRepository.findById(id);
+    //resumen por dia de los turnos entre from y to (inclusive), calculado con una sola consulta agregada
+    public List<AppointmentDaySummaryDto> getAppointmentSummary(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior o igual a la de fin");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("El rango no puede superar los " + MAX_RANGE_DAYS + " dias");
+        }
 
-        return (List<AppointmentResponseDto>) patient.get().getAppointment()
+        Map<LocalDate, List<AppointmentStatusCountDto>> rowsByDay = appRepository
+                .countByDayAndStatus(from.atStartOfDay(), to.plusDays(1).atStartOfDay())
                 .stream()
-                .map(appointment -> appMapper.entityToResponse(appointment))
-                .collect(Collectors.toList());
+                .collect(Collectors.groupingBy(AppointmentStatusCountDto::fecha, TreeMap::new, Collectors.toList()));
+
+        List<AppointmentDaySummaryDto> summary = new ArrayList<>(rowsByDay.size());
+        rowsByDay.forEach((day, rows) -> {
+            Map<AppointmentStatus, Long> counts = new EnumMap<>(AppointmentStatus.class);
+            long total = 0;
+            LocalDateTime first = null;
+            LocalDateTime last = null;
+            for (AppointmentStatusCountDto row : rows) {
+                counts.put(row.status(), row.count());
+                total += row.count();
+                first = first == null || row.first().isBefore(first) ? row.first() : first;
+                last = last == null || row.last().isAfter(last) ? row.last() : last;
+            }
+            summary.add(new AppointmentDaySummaryDto(day, counts, total, first.toLocalTime(), last.toLocalTime()));
+        });
+        return summary;
+    }
+
+    //historial de turnos de un paciente, del mas reciente al mas antiguo, paginado por cursor
+    //y opcionalmente filtrado por estado (una consulta por pagina, sin cargar la coleccion del paciente)
+    public AppointmentPageDto getAppointmentsById(int id, Set<AppointmentStatus> statuses, String cursor, int size) {
+        if (!patientRepository.existsById(id)) {
+            throw new PatientNotFoundException("No se encontró un paciente con el ID: " + id);
+        }
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        AppointmentCursor position = AppointmentCursor.decode(cursor);
+
+        // sin cursor se empieza por el final de la agenda
+        List<AppointmentResponseDto> rows = appRepository.findPatientHistory(id,
+                statuses == null || statuses.isEmpty() ? EnumSet.allOf(AppointmentStatus.class) : statuses,
+                position != null ? position.date() : HISTORY_START,
+                position != null ? position.id() : Integer.MAX_VALUE,
+                Limit.of(pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<AppointmentResponseDto> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            AppointmentResponseDto last = page.get(page.size() - 1);
+            nextCursor = new AppointmentCursor(LocalDateTime.of(LocalDate.parse(last.fecha()), LocalTime.parse(last.hora())),
+                    last.id()).encode();
+        }
+        return new AppointmentPageDto(List.copyOf(page), nextCursor);
     }
 
 
-    //actualizar turnos (patch)
+    //actualizar turnos (patch): solo se aplican los campos presentes en el body
     @Transactional
-    public AppointmentResponseDto patchAppointment(int id, Map<String, Object> updates) {
+    public AppointmentResponseDto patchAppointment(int id, AppointmentPatchDto patch) {
         Appointment app = appRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Turno no encontrado con ID: " + id));
 
-        final AtomicReference<LocalDate> tempLocalDateRef = new AtomicReference<>(app.getDate().toLocalDate());
-        final AtomicReference<LocalTime> tempLocalTimeRef = new AtomicReference<>(app.getDate().toLocalTime());
-
-
-        updates.forEach((key, value) -> {
-            switch (key) {
-                case "duration":
-                    if (value instanceof Number) {
-                        app.setDuration(((Number) value).intValue());
-                    } else {
-                        System.err.println("Valor inesperado para 'duration': " + value);
-                    }
-                    break;
-                case "fecha":
-                    if (value instanceof String) {
-                        try {
-                            tempLocalDateRef.set(LocalDate.parse((String) value, DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                        } catch (Exception e) {
-                            System.err.println("Error parseando 'fecha': " + value + " - " + e.getMessage());
-                        }
-                    } else {
-                        System.err.println("Valor inesperado para 'fecha': " + value);
-                    }
-                    break;
-                case "hora":
-                    if (value instanceof String) {
-                        try {
-                            tempLocalTimeRef.set(LocalTime.parse((String) value, DateTimeFormatter.ofPattern("HH:mm:ss")));
-                        } catch (Exception e) {
-                            System.err.println("Error parseando 'hora': " + value + " - " + e.getMessage());
-                        }
-                    } else {
-                        System.err.println("Valor inesperado para 'hora': " + value);
-                    }
-                    break;
-                case "state":
-                    if (value instanceof String) {
-                        app.setStatus(AppointmentStatus.valueOf((String) value));
-                    } else {
-                        System.err.println("Valor inesperado para 'state': " + value);
-                    }
-                    break;
-                case "sessionNotes":
-                    if (value instanceof String) {
-                        app.setSessionNotes((String) value);
-                    } else {
-                        System.err.println("Valor inesperado para 'sessionNotes': " + value);
-                    }
-                    break;
-                case "patient":
-                    if (value instanceof Map) {
-                        try {
-                            PatientDto patientDto = objectMapper.convertValue(value, PatientDto.class);
-
-                            // Si el PatientDto tiene un ID, busca el paciente existente
-                            if (patientDto.id() != null) {
-                                Patient managedPatient = patientRepository.findById(patientDto.id())
-                                        .orElseThrow(() -> new IllegalArgumentException("Paciente asociado no encontrado con ID: " + patientDto.id()));
-                                app.setPatient(managedPatient); // Asigna la entidad Patient manejada
-                            } else {
-                                // Si no hay ID en el PatientDto es un error
-                                throw new IllegalArgumentException("Para cambiar el paciente de un turno, debe proporcionar el ID de un paciente existente.");
-                            }
-                        } catch (IllegalArgumentException e) {
-                            System.err.println("Error al procesar el paciente en PATCH: " + e.getMessage());
-                            // Re-lanzar para que la transacción falle y el controlador lo maneje
-                            throw e;
-                        }
-                    } else {
-                        System.err.println("Valor inesperado para 'patient': " + value);
-                        throw new IllegalArgumentException("Formato de datos de paciente inesperado.");
-                    }
-                    break;
-                default:
-                    break;
+        if (patch.duration() != null) {
+            int duration = requireValue(patch.duration(), "La duración");
+            if (duration <= 0) {
+                throw new IllegalArgumentException("La duración del turno debe ser mayor a cero");
             }
-        });
+            app.setDuration(duration);
+        }
+        if (patch.state() != null) {
+            app.setStatus(requireValue(patch.state(), "El estado"));
+        }
+        if (patch.sessionNotes() != null) {
+            // "sessionNotes": null borra las notas
+            app.setSessionNotes(patch.sessionNotes().orElse(null));
+        }
+        if (patch.patient() != null) {
+            PatientDto patientDto = requireValue(patch.patient(), "El paciente");
+            if (patientDto.id() == null) {
+                throw new IllegalArgumentException("Para cambiar el paciente de un turno, debe proporcionar el ID de un paciente existente.");
+            }
+            // el paciente solo se busca si realmente cambia
+            if (app.getPatient() == null || !patientDto.id().equals(app.getPatient().getId())) {
+                app.setPatient(patientCache.findById(patientDto.id())
+                        .orElseThrow(() -> new IllegalArgumentException("Paciente asociado no encontrado con ID: " + patientDto.id())));
+            }
+        }
 
-        LocalDateTime newDateTime = LocalDateTime.of(tempLocalDateRef.get(), tempLocalTimeRef.get());
-        if (!app.getDate().equals(newDateTime)) {
-            // estados que deben considerarse como conflicto
-            List<AppointmentStatus> conflictingStatuses = Arrays.asList(
-                    AppointmentStatus.CONFIRMADO,
-                    AppointmentStatus.BLOQUEADO,
-                    AppointmentStatus.CANCELADO
-            );
-
-            Optional<Appointment> conflictingAppointment = appRepository.findByDateAndIdIsNotAndStatusIn(
-                    newDateTime,
-                    app.getId(),
-                    conflictingStatuses
-            );
-
-            if (conflictingAppointment.isPresent()) {
-                System.err.println("Conflicto de turno detectado: La fecha y hora " + newDateTime + " ya están ocupadas por un turno " + conflictingAppointment.get().getStatus() + ".");
+        LocalDateTime previousDateTime = app.getDate();
+        LocalDateTime newDateTime = LocalDateTime.of(
+                patch.fecha() != null ? requireValue(patch.fecha(), "La fecha") : previousDateTime.toLocalDate(),
+                patch.hora() != null ? requireValue(patch.hora(), "La hora") : previousDateTime.toLocalTime());
+        // la franja solo se valida si la fecha u hora cambian
+        if (!previousDateTime.equals(newDateTime)) {
+            // conflicto si la nueva franja esta confirmada, bloqueada o cancelada por otro turno
+            if (slotIndex.findConflict(newDateTime, app.getId()).isPresent()) {
                 throw new AppointmentConflictException("La fecha y hora seleccionadas ya están ocupadas por otro turno (confirmado, bloqueado o cancelado).");
             }
             app.setDate(newDateTime);
-        } else {
-            System.out.println("LocalDateTime del turno no cambió.");
         }
 
 
-        Appointment updated = appRepository.save(app);
+        Appointment updated;
+        try {
+            updated = appRepository.saveAndFlush(app);
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // la franja fue ocupada (o el turno modificado) por otro usuario entre la validacion y el guardado
+            slotIndex.evict(newDateTime.toLocalDate());
+            throw new AppointmentConflictException("El turno o la franja seleccionada fueron modificados por otro usuario. Intente nuevamente.");
+        }
+        slotIndex.recordAfterCommit(updated, previousDateTime);
 
         if (updated.getPatient() != null && updated.getPatient().getEmail() != null) {
             // Lógica de generación del correo
@@ -331,6 +575,11 @@ public class AppointmentService {
     }
 
 
+    //valor obligatorio de un patch: enviarlo como null es un error
+    private static <T> T requireValue(Optional<T> value, String field) {
+        return value.orElseThrow(() -> new IllegalArgumentException(field + " no puede ser nulo"));
+    }
+
     @Transactional
     public String cancelAppointment(int id) { // El servicio devuelve un String de mensaje de éxito
         Appointment appointment = appRepository.findById(id)
@@ -366,6 +615,8 @@ public class AppointmentService {
         }
 
         Appointment appointmentToCancel = appRepository.save(appointment);
+        slotIndex.recordAfterCommit(appointmentToCancel);
+        reminderTimer.cancelAfterCommit(List.of(appointmentToCancel.getId()));
 
         if (appointmentToCancel.getPatient() != null && appointmentToCancel.getPatient().getEmail() != null) {
             // Lógica de generación del correo
@@ -394,6 +645,7 @@ public class AppointmentService {
                 .orElseThrow(() -> new IllegalArgumentException("Recordatorio no encontrado"));
 
         Appointment appointment = reminder.getAppointment();
+        reminderTimer.cancelAfterCommit(List.of(appointment.getId()));
 
         // Validamos si la ventana de 24 horas de antelación aún está abierta
         if (LocalDateTime.now().isBefore(appointment.getDate().minusHours(48))) {
@@ -401,6 +653,7 @@ public class AppointmentService {
             // Usamos la misma lógica que tu método de cancelación, pero sin la validación de tiempo
             appointment.setStatus(AppointmentStatus.CANCELADO);
             appRepository.save(appointment);
+            slotIndex.recordAfterCommit(appointment);
 
             // Actualizamos el recordatorio para marcarlo como confirmado
             reminder.setSent(true);
@@ -428,9 +681,11 @@ public class AppointmentService {
                 if (app.getStatus() == AppointmentStatus.CONFIRMADO || app.getStatus() == AppointmentStatus.DISPONIBLE || app.getStatus() == AppointmentStatus.CANCELADO) {
                     app.setPatient(null); // Limpiar datos del paciente si estaba confirmado o disponible
                     app.setSessionNotes(null); // Limpiar observaciones
+                    reminderTimer.cancelAfterCommit(List.of(app.getId()));
                 }
                 app.setStatus(AppointmentStatus.BLOQUEADO);
                 appRepository.save(app);
+                slotIndex.recordAfterCommit(app);
                 return "Horario bloqueado exitosamente.";
             } else {
                 // No existe un turno en este horario, así que creamos uno nuevo como BLOQUEADO
@@ -439,10 +694,11 @@ public class AppointmentService {
                 newBlockedAppointment.setStatus(AppointmentStatus.BLOQUEADO);
                 newBlockedAppointment.setDuration(50); // Duración por defecto, ajustar según sea necesario
                 // --- Asignar profesional por defecto al bloquear un slot nuevo ---
-                Professional defaultProfessional = professionalRepository.findById(1);
+                Professional defaultProfessional = professionalCache.reference();
                 newBlockedAppointment.setProfessional(defaultProfessional);
 
                 appRepository.save(newBlockedAppointment);
+                slotIndex.recordAfterCommit(newBlockedAppointment);
                 return "Horario bloqueado exitosamente (nuevo slot creado).";
             }
         } else { // El usuario quiere DESBLOQUEAR el horario
@@ -454,6 +710,7 @@ public class AppointmentService {
                     app.setPatient(null); // Limpiar datos del paciente al hacerlo disponible
                     app.setSessionNotes(null); // Limpiar observaciones
                     appRepository.save(app);
+                    slotIndex.recordAfterCommit(app);
                     return "Horario desbloqueado exitosamente.";
                 } else if (app.getStatus() == AppointmentStatus.CONFIRMADO) {
                     // Si está confirmado, no se puede desbloquear directamente a DISPONIBLE. Debe cancelarse primero.
@@ -476,15 +733,116 @@ public class AppointmentService {
                 newAvailableAppointment.setSessionNotes(null); // Sin observaciones
 
                 // --- CORRECCIÓN CLAVE AQUÍ: Asignar profesional por defecto al desbloquear un slot nuevo ---
-                Professional defaultProfessional = professionalRepository.findById(1);
+                Professional defaultProfessional = professionalCache.reference();
                 newAvailableAppointment.setProfessional(defaultProfessional);
 
                 appRepository.save(newAvailableAppointment);
+                slotIndex.recordAfterCommit(newAvailableAppointment);
                 return "Horario desbloqueado exitosamente (slot creado como disponible para anular bloqueo de frontend).";
             }
         }
     }
 
+    //bloquear o desbloquear todas las franjas del rango [from, to) de una sola vez.
+    //Los turnos existentes se actualizan con una sentencia masiva, las franjas de la grilla que no existen
+    //se insertan en lote y los turnos CONFIRMADOS solo se cancelan (y notifican) si se pide explicitamente al bloquear.
+    @Transactional
+    public AppointmentRangeResultDto applyRangeAction(AppointmentRangeRequestDto dto) {
+        if (dto == null || dto.from() == null || dto.to() == null) {
+            throw new IllegalArgumentException("El rango debe indicar fecha/hora de inicio y de fin");
+        }
+        LocalDateTime from = dto.from();
+        LocalDateTime to = dto.to();
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("La fecha/hora de inicio debe ser anterior a la de fin");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("El rango no puede superar los " + MAX_RANGE_DAYS + " dias");
+        }
+        if (dto.cancelConfirmed() && !dto.block()) {
+            // desbloquear reabre las franjas: no hay motivo para cancelar los turnos confirmados
+            throw new IllegalArgumentException("Solo se pueden cancelar los turnos confirmados al bloquear un rango");
+        }
+
+        AppointmentStatus target = dto.block() ? AppointmentStatus.BLOQUEADO : AppointmentStatus.DISPONIBLE;
+
+        // franjas ya existentes en el rango (una sola consulta, sin cargar entidades)
+        List<AppointmentSlotDto> existing = appRepository.findSlotsBetween(from, to);
+        Set<LocalDateTime> existingDates = existing.stream()
+                .map(AppointmentSlotDto::date)
+                .collect(Collectors.toSet());
+        int confirmed = (int) existing.stream()
+                .filter(slot -> slot.status() == AppointmentStatus.CONFIRMADO)
+                .count();
+
+        // datos para avisar a los pacientes, leidos antes de desvincularlos
+        List<AppointmentNotificationDto> cancelled = dto.cancelConfirmed()
+                ? appRepository.findNotificationsBetween(from, to, AppointmentStatus.CONFIRMADO)
+                : List.of();
+
+        Set<AppointmentStatus> sourceStatuses = dto.block()
+                ? EnumSet.of(AppointmentStatus.DISPONIBLE, AppointmentStatus.CANCELADO)
+                : EnumSet.of(AppointmentStatus.BLOQUEADO, AppointmentStatus.CANCELADO);
+        if (dto.cancelConfirmed()) {
+            sourceStatuses.add(AppointmentStatus.CONFIRMADO);
+        }
+        int updated = appRepository.updateStatusBetween(from, to, sourceStatuses, target);
+
+        if (!cancelled.isEmpty()) {
+            // los recordatorios de los turnos cancelados ya no deben enviarse
+            List<Integer> cancelledIds = cancelled.stream()
+                    .map(AppointmentNotificationDto::appointmentId)
+                    .toList();
+            reminderRepository.markSentByAppointmentIds(cancelledIds);
+            reminderTimer.cancelAfterCommit(cancelledIds);
+        }
+
+        // franjas de la grilla del profesional que todavia no tienen fila en la BD: se crean con el estado pedido
+        // (solo en dias de atencion)
+        WorkingHours hours = professionalCache.workingHours();
+        Professional defaultProfessional = professionalCache.reference();
+        List<Appointment> missing = new ArrayList<>();
+        for (LocalDateTime slot : hours.slotsBetween(from, to)) {
+            if (hours.isWorkingDay(slot.toLocalDate()) && !existingDates.contains(slot)) {
+                Appointment app = new Appointment();
+                app.setDate(slot);
+                app.setStatus(target);
+                app.setDuration(hours.slotDuration());
+                app.setProfessional(defaultProfessional);
+                missing.add(app);
+            }
+        }
+        appRepository.saveAll(missing);
+
+        slotIndex.evictAfterCommit(from, to);
+
+        // solo se avisa a los pacientes que tienen correo
+        List<EmailEvent> cancellationEmails = cancelled.stream()
+                .filter(notification -> notification.email() != null)
+                .map(this::rangeCancellationEmail)
+                .toList();
+        if (!cancellationEmails.isEmpty()) {
+            eventPublisher.publishEvent(new EmailBatchEvent(this, cancellationEmails));
+        }
+
+        int skippedConfirmed = dto.cancelConfirmed() ? 0 : confirmed;
+        String message = (dto.block() ? "Rango bloqueado exitosamente." : "Rango desbloqueado exitosamente.")
+                + (skippedConfirmed > 0 ? " Se mantuvieron " + skippedConfirmed + " turnos confirmados." : "");
+        return new AppointmentRangeResultDto(updated, missing.size(), cancelled.size(), skippedConfirmed, message);
+    }
+
+    //correo de aviso de un turno cancelado por una operacion sobre un rango
+    private EmailEvent rangeCancellationEmail(AppointmentNotificationDto notification) {
+        StringBuilder body = new StringBuilder();
+        body.append("<h1>¡Hola, ").append(notification.firstName()).append("!</h1>");
+        body.append("<p>Tu turno ha sido <strong>CANCELADO</strong> porque el profesional no atenderá en ese horario.</p>");
+        body.append("<ul>");
+        body.append("<li><strong>Fecha y Hora:</strong> ").append(notification.date().format(FORMATTER)).append("</li>");
+        body.append("</ul>");
+        body.append("<p>Atentamente, Equipo Médico.</p>");
+        return new EmailEvent(this, notification.email(), "Cancelacion de cita", body.toString());
+    }
+
     //asignar session notes
     @Transactional
     public String setSessionNotes(String notes,Integer id) {
@@ -514,13 +872,8 @@ public class AppointmentService {
             throw new IllegalArgumentException("id nulo");
         }
 
-        Optional<Appointment> app = appRepository.findById(id);
-
-        if(app.isPresent()){
-            return app.get().getSessionNotes().toString();
-        }
-
-        return "";
+        // consulta escalar: solo la columna de notas, sin cargar el turno
+        return appRepository.findSessionNotesById(id).orElse("");
     }
 
 
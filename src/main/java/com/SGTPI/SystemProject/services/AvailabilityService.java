@@ -0,0 +1,93 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.AppointmentSlotDto;
+import com.SGTPI.SystemProject.dto.FreeSlotDto;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import com.SGTPI.SystemProject.utils.WorkingHours;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Service;
+
+//busqueda de franjas libres: grilla de horarios de atencion menos los turnos ocupados, bloqueados o cancelados.
+//Las franjas libres no se materializan en la BD; solo se lee la ocupacion del rango en una consulta
+@Service
+public class AvailabilityService {
+
+    //cantidad maxima de dias de una busqueda por rango
+    private static final int MAX_RANGE_DAYS = 62;
+
+    //cantidad maxima de franjas devueltas por "proximas N franjas"
+    private static final int MAX_NEXT_SLOTS = 100;
+
+    //dias hacia adelante que se recorren buscando las proximas franjas libres, de a SEARCH_WINDOW_DAYS por consulta
+    private static final int SEARCH_HORIZON_DAYS = 366;
+    private static final int SEARCH_WINDOW_DAYS = 14;
+
+    private final AppointmentRepository appRepository;
+
+    //horarios de atencion ya parseados del profesional
+    private final ProfessionalCache professionalCache;
+
+    public AvailabilityService(AppointmentRepository appRepository, ProfessionalCache professionalCache) {
+        this.appRepository = appRepository;
+        this.professionalCache = professionalCache;
+    }
+
+    //franjas libres en el rango [from, to)
+    public List<FreeSlotDto> findFreeSlots(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("La fecha/hora de inicio debe ser anterior a la de fin");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("El rango no puede superar los " + MAX_RANGE_DAYS + " dias");
+        }
+        List<FreeSlotDto> free = new ArrayList<>();
+        collectFreeSlots(from, to, free, Integer.MAX_VALUE);
+        return free;
+    }
+
+    //proximas count franjas libres a partir de after (inclusive)
+    public List<FreeSlotDto> findNextFreeSlots(LocalDateTime after, int count) {
+        if (count < 1 || count > MAX_NEXT_SLOTS) {
+            throw new IllegalArgumentException("La cantidad de franjas debe estar entre 1 y " + MAX_NEXT_SLOTS);
+        }
+        LocalDateTime start = after != null ? after : LocalDateTime.now();
+        LocalDateTime horizon = start.plusDays(SEARCH_HORIZON_DAYS);
+
+        List<FreeSlotDto> free = new ArrayList<>();
+        for (LocalDateTime from = start; free.size() < count && from.isBefore(horizon); ) {
+            LocalDateTime to = from.toLocalDate().plusDays(SEARCH_WINDOW_DAYS).atStartOfDay();
+            collectFreeSlots(from, to.isBefore(horizon) ? to : horizon, free, count);
+            from = to;
+        }
+        return free;
+    }
+
+    //agrega a free las franjas libres de [from, to) hasta llegar a limit
+    private void collectFreeSlots(LocalDateTime from, LocalDateTime to, List<FreeSlotDto> free, int limit) {
+        WorkingHours hours = professionalCache.workingHours();
+
+        Map<LocalDateTime, AppointmentStatus> occupancy = new HashMap<>();
+        for (AppointmentSlotDto slot : appRepository.findSlotsBetween(from, to)) {
+            occupancy.put(slot.date(), slot.status());
+        }
+
+        for (LocalDateTime slot : hours.slotsBetween(from, to)) {
+            if (free.size() >= limit) {
+                return;
+            }
+            AppointmentStatus status = occupancy.get(slot);
+            // sin turno: libre solo en dias de atencion; con turno: libre solo si esta DISPONIBLE
+            // (un DISPONIBLE explicito desbloquea tambien una franja de un dia sin atencion)
+            boolean isFree = status == null ? hours.isWorkingDay(slot.toLocalDate()) : status == AppointmentStatus.DISPONIBLE;
+            if (isFree) {
+                free.add(new FreeSlotDto(slot.toLocalDate(), slot.toLocalTime(), hours.slotDuration()));
+            }
+        }
+    }
+}
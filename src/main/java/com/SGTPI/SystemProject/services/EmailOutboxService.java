@@ -0,0 +1,302 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.EmailLane;
+import com.SGTPI.SystemProject.models.EmailOutbox;
+import com.SGTPI.SystemProject.models.EmailOutboxStatus;
+import com.SGTPI.SystemProject.repositories.EmailOutboxRepository;
+import com.SGTPI.SystemProject.utils.EmailBatchEvent;
+import com.SGTPI.SystemProject.utils.EmailEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//bandeja de salida de correos (transactional outbox).
+//Los EmailEvent y EmailBatchEvent se escuchan de forma sincronica y se guardan en email_outbox_tbl dentro de la
+//transaccion que los publica: si esa transaccion se revierte, el correo no existe. Al confirmar se pide un envio
+//en el pool de correo, que reclama bloques de correos pendientes y los envia fuera del hilo del request.
+//Un correo se marca como enviado en la misma transaccion que lo reclamo, asi que si el proceso se corta a mitad
+//de un bloque se vuelve a enviar (al menos una vez). Los fallidos se reintentan con espera creciente y,
+//despues de MAX_ATTEMPTS intentos, quedan en FALLIDO con el ultimo error.
+//La tabla es tambien el desborde: ante una rafaga los correos esperan ahi y salen con demora, sin perderse.
+//Cada carril (EmailLane) se vacia por separado, con su propio vaciado en curso y su propia conexion SMTP:
+//una rafaga de recordatorios no demora las confirmaciones y cancelaciones.
+//Metricas por carril (tag lane): email.outbox.pending, email.outbox.dead y email.outbox.oldest.pending.seconds
+//(consultan la tabla), email.outbox.queue.latency (desde que se guarda hasta que sale) y los contadores
+//email.outbox.enqueued, email.outbox.sent, email.outbox.retried y email.outbox.dead.lettered
+@Service
+public class EmailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    //correos por transaccion
+    static final int BATCH_SIZE = 20;
+
+    //intentos de envio antes de pasar el correo a FALLIDO
+    static final int MAX_ATTEMPTS = 5;
+
+    //espera antes del primer reintento; se duplica en cada intento
+    private static final long RETRY_BASE_SECONDS = 60;
+
+    //dias que se conservan los correos ya enviados
+    private static final int SENT_RETENTION_DAYS = 7;
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    //espera antes de vaciar la bandeja despues de una confirmacion, para juntar los correos de una rafaga
+    private static final long LINGER_MS = 20;
+
+    private final EmailOutboxRepository outboxRepository;
+
+    private final EmailService emailService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor emailExecutor;
+
+    //estado de cada carril
+    private final Map<EmailLane, Lane> lanes = new EnumMap<>(EmailLane.class);
+
+    public EmailOutboxService(EmailOutboxRepository outboxRepository, EmailService emailService,
+                              TransactionTemplate transactionTemplate, @Qualifier("emailExecutor") Executor emailExecutor,
+                              MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.emailExecutor = emailExecutor;
+        for (EmailLane lane : EmailLane.values()) {
+            lanes.put(lane, new Lane(lane, outboxRepository, meterRegistry));
+        }
+    }
+
+    //guardar un correo en la bandeja de salida
+    @EventListener
+    public void enqueue(EmailEvent event) {
+        enqueueAll(List.of(event));
+    }
+
+    //guardar los correos de una operacion masiva en la bandeja de salida
+    @EventListener
+    public void enqueueBatch(EmailBatchEvent batch) {
+        enqueueAll(batch.getEmails());
+    }
+
+    //pedir el vaciado de cada carril en el pool de correo.
+    //Ademas de los pedidos al confirmar, corre periodicamente para los reintentos y lo que haya quedado
+    //pendiente por un reinicio o por tener el pool de correo lleno. No envia en el hilo del scheduler,
+    //que es uno solo: un carril MASIVO largo frenaria al TRANSACCIONAL y al resto de las tareas programadas
+    @Scheduled(fixedDelay = 30_000)
+    public void dispatch() {
+        for (EmailLane lane : EmailLane.values()) {
+            wakeUp(lane);
+        }
+    }
+
+    //vaciar un carril: envia bloques de BATCH_SIZE correos pendientes hasta que no queden vencidos.
+    //Hay a lo sumo un vaciado en curso por carril en cada nodo
+    public void dispatch(EmailLane lane) {
+        Lane state = lanes.get(lane);
+        state.requested.set(true);
+        // si ya hay un vaciado en curso, ese mismo vuelve a pasar al terminar
+        while (state.requested.get() && state.running.compareAndSet(false, true)) {
+            try {
+                state.requested.set(false);
+                int claimed;
+                do {
+                    claimed = transactionTemplate.execute(status -> dispatchBatch(state, LocalDateTime.now()));
+                } while (claimed == BATCH_SIZE);
+            } catch (RuntimeException e) {
+                // los correos siguen pendientes en la tabla: el proximo ciclo los vuelve a intentar
+                log.error("Error al procesar la bandeja de correos ({})", lane, e);
+                return;
+            } finally {
+                state.running.set(false);
+            }
+        }
+    }
+
+    //borrar los correos enviados hace mas de SENT_RETENTION_DAYS dias
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minusDays(SENT_RETENTION_DAYS);
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteSentBefore(before));
+    }
+
+    private void enqueueAll(List<EmailEvent> emails) {
+        // un correo sin destinatario no se guarda: la columna es obligatoria y el insert
+        // revertiria la transaccion que lo publico
+        List<EmailEvent> deliverable = emails.stream()
+                .filter(email -> email.getTo() != null && !email.getTo().isBlank())
+                .toList();
+        if (deliverable.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<EmailLane> touched = EnumSet.noneOf(EmailLane.class);
+        outboxRepository.saveAll(deliverable.stream()
+                .map(email -> {
+                    EmailLane lane = email.getLane() != null ? email.getLane() : EmailLane.TRANSACCIONAL;
+                    touched.add(lane);
+                    lanes.get(lane).enqueued.increment();
+                    return EmailOutbox.builder()
+                            .recipient(email.getTo())
+                            .subject(email.getSubject())
+                            .body(email.getBody())
+                            .status(EmailOutboxStatus.PENDIENTE)
+                            .lane(lane)
+                            .nextAttemptAt(now)
+                            .createdAt(now)
+                            .build();
+                })
+                .toList());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            touched.forEach(this::wakeUp);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                touched.forEach(EmailOutboxService.this::wakeUp);
+            }
+        });
+    }
+
+    //pedir un vaciado del carril en el pool de correo sin bloquear al que confirmo la transaccion.
+    //El vaciado espera LINGER_MS antes de reclamar, asi las confirmaciones de una rafaga salen en los mismos lotes
+    private void wakeUp(EmailLane lane) {
+        AtomicBoolean wakeUpPending = lanes.get(lane).wakeUpPending;
+        if (!wakeUpPending.compareAndSet(false, true)) {
+            // ya hay un vaciado pedido que todavia no empezo: va a incluir este correo
+            return;
+        }
+        try {
+            emailExecutor.execute(() -> {
+                try {
+                    Thread.sleep(LINGER_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                wakeUpPending.set(false);
+                dispatch(lane);
+            });
+        } catch (RejectedExecutionException e) {
+            // pool lleno: el correo ya esta guardado y lo envia el proximo ciclo programado
+            wakeUpPending.set(false);
+        }
+    }
+
+    //reclama un bloque de correos pendientes del carril, los envia y registra el resultado de cada uno.
+    //Devuelve la cantidad reclamada
+    private int dispatchBatch(Lane lane, LocalDateTime now) {
+        List<Integer> claimed = outboxRepository.claimPending(lane.lane.name(), now, BATCH_SIZE);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        List<EmailOutbox> emails = outboxRepository.findByIdIn(claimed);
+        // todo el bloque sale por la conexion SMTP del carril
+        Map<Integer, Exception> failures = emailService.sendAll(lane.lane, emails);
+        LocalDateTime sentAt = LocalDateTime.now();
+        for (EmailOutbox email : emails) {
+            email.setAttempts(email.getAttempts() + 1);
+            Exception error = failures.get(email.getId());
+            if (error == null) {
+                email.setStatus(EmailOutboxStatus.ENVIADO);
+                email.setSentAt(sentAt);
+                email.setLastError(null);
+                lane.sent.increment();
+                if (email.getCreatedAt() != null) {
+                    lane.queueLatency.record(Duration.between(email.getCreatedAt(), sentAt));
+                }
+            } else {
+                registerFailure(lane, email, error, now);
+            }
+        }
+        return claimed.size();
+    }
+
+    //programa el reintento del correo o lo pasa a FALLIDO si agoto los intentos
+    private void registerFailure(Lane lane, EmailOutbox email, Exception error, LocalDateTime now) {
+        String message = String.valueOf(error.getMessage());
+        email.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (email.getAttempts() >= MAX_ATTEMPTS) {
+            email.setStatus(EmailOutboxStatus.FALLIDO);
+            lane.deadLettered.increment();
+            log.warn("Correo #{} descartado despues de {} intentos", email.getId(), email.getAttempts(), error);
+        } else {
+            email.setNextAttemptAt(now.plusSeconds(RETRY_BASE_SECONDS << (email.getAttempts() - 1)));
+            lane.retried.increment();
+        }
+    }
+
+    //estado y metricas de un carril
+    private static final class Lane {
+
+        private final EmailLane lane;
+
+        //hay un vaciado del carril en curso en este nodo
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        //se pidio un vaciado mientras otro estaba en curso
+        private final AtomicBoolean requested = new AtomicBoolean();
+
+        //hay un vaciado encargado al pool que todavia no empezo
+        private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+        private final Counter enqueued;
+        private final Counter sent;
+        private final Counter retried;
+        private final Counter deadLettered;
+        private final Timer queueLatency;
+
+        private Lane(EmailLane lane, EmailOutboxRepository outboxRepository, MeterRegistry meterRegistry) {
+            this.lane = lane;
+            String tag = lane.name();
+            Gauge.builder("email.outbox.pending", outboxRepository,
+                            repository -> repository.countByStatusAndLane(EmailOutboxStatus.PENDIENTE, lane))
+                    .description("Correos esperando envio o reintento")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("email.outbox.dead", outboxRepository,
+                            repository -> repository.countByStatusAndLane(EmailOutboxStatus.FALLIDO, lane))
+                    .description("Correos que agotaron los reintentos")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("email.outbox.oldest.pending.seconds", outboxRepository,
+                            repository -> repository.findOldestPendingCreatedAt(lane)
+                                    .map(createdAt -> (double) Duration.between(createdAt, LocalDateTime.now()).toSeconds())
+                                    .orElse(0.0))
+                    .description("Antiguedad del correo pendiente mas viejo")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            this.enqueued = meterRegistry.counter("email.outbox.enqueued", "lane", tag);
+            this.sent = meterRegistry.counter("email.outbox.sent", "lane", tag);
+            this.retried = meterRegistry.counter("email.outbox.retried", "lane", tag);
+            this.deadLettered = meterRegistry.counter("email.outbox.dead.lettered", "lane", tag);
+            this.queueLatency = Timer.builder("email.outbox.queue.latency")
+                    .description("Tiempo desde que el correo se guarda en la bandeja hasta que sale")
+                    .tag("lane", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+    }
+}
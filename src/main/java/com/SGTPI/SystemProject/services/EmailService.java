@@ -1,20 +1,30 @@
 package com.SGTPI.SystemProject.services;
 
 import com.SGTPI.SystemProject.models.Appointment;
+import com.SGTPI.SystemProject.models.EmailLane;
+import com.SGTPI.SystemProject.models.EmailOutbox;
 import com.SGTPI.SystemProject.models.Patient;
-import com.SGTPI.SystemProject.utils.EmailEvent;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
 import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 //logica de negocio para enviar emails
 @Service
@@ -28,26 +38,166 @@ public class EmailService {
     private static final String SENDER_EMAIL = "sgtpiofficial@gmail.com";
 
 
-    //metodo asincrono para enviar email
-    @Async("emailExecutor")
-    @EventListener
-    public void handleEmailEvent(EmailEvent event) {
+    //una conexion SMTP sin uso por mas de este tiempo se cierra (los servidores cortan las conexiones ociosas)
+    static final long IDLE_TIMEOUT_MS = 60_000;
+
+    //una conexion SMTP autenticada por carril, que se reutiliza entre lotes: un lote masivo no ocupa
+    //la conexion de los correos transaccionales
+    private final Map<EmailLane, SmtpConnection> connections = new EnumMap<>(EmailLane.class);
+
+    public EmailService() {
+        for (EmailLane lane : EmailLane.values()) {
+            connections.put(lane, new SmtpConnection());
+        }
+    }
+
+    //envia un lote de correos de la bandeja de salida por la conexion SMTP del carril y devuelve los que fallaron
+    //(id del correo -> error). La conexion queda abierta para el proximo lote; si el servidor la corto,
+    //se reconecta una vez y se reintenta el mensaje
+    public Map<Integer, Exception> sendAll(EmailLane lane, List<EmailOutbox> emails) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        Map<Integer, MimeMessage> messages = new LinkedHashMap<>();
+        for (EmailOutbox email : emails) {
+            try {
+                messages.put(email.getId(), createMessage(email));
+            } catch (MessagingException | RuntimeException e) {
+                failures.put(email.getId(), e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+
+        if (mailSender instanceof JavaMailSenderImpl sender) {
+            connections.get(lane).send(sender, messages, failures);
+        } else {
+            // otra implementacion de JavaMailSender: se usa su envio en lote
+            sendBatch(messages, failures);
+        }
+        return failures;
+    }
+
+    //cierra las conexiones SMTP que quedaron ociosas
+    @Scheduled(fixedDelay = IDLE_TIMEOUT_MS)
+    public void closeIdleTransports() {
+        connections.values().forEach(SmtpConnection::closeIfIdle);
+    }
+
+    @PreDestroy
+    public void closeTransports() {
+        connections.values().forEach(SmtpConnection::close);
+    }
+
+    private MimeMessage createMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
+
+        helper.setFrom(SENDER_EMAIL);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        return message;
+    }
+
+    private void sendBatch(Map<Integer, MimeMessage> messages, Map<Integer, Exception> failures) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
+            mailSender.send(messages.values().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            messages.forEach((id, message) -> {
+                if (failed.isEmpty()) {
+                    failures.put(id, e);
+                } else if (failed.containsKey(message)) {
+                    failures.put(id, failed.get(message));
+                }
+            });
+        } catch (MailException e) {
+            messages.keySet().forEach(id -> failures.put(id, e));
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    //conexion SMTP reutilizable; se usa de a un lote por vez
+    private static final class SmtpConnection {
+
+        private Transport transport;
 
-            helper.setFrom(SENDER_EMAIL);
-            helper.setTo(event.getTo());
-            helper.setSubject(event.getSubject());
-            helper.setText(event.getBody(), true);
+        private long lastUsedMillis;
 
-            mailSender.send(message);
+        synchronized void send(JavaMailSenderImpl sender, Map<Integer, MimeMessage> messages, Map<Integer, Exception> failures) {
+            try {
+                connect(sender);
+            } catch (MessagingException e) {
+                // sin conexion (servidor caido, credenciales): falla el lote entero sin reintentar mensaje por mensaje
+                messages.keySet().forEach(id -> failures.put(id, e));
+                return;
+            }
+            messages.forEach((id, message) -> {
+                try {
+                    sendOverTransport(sender, message);
+                } catch (MessagingException | RuntimeException e) {
+                    failures.put(id, e);
+                }
+            });
+            lastUsedMillis = System.currentTimeMillis();
+        }
+
+        synchronized void closeIfIdle() {
+            if (transport != null && System.currentTimeMillis() - lastUsedMillis > IDLE_TIMEOUT_MS) {
+                close();
+            }
+        }
+
+        synchronized void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    // la conexion ya estaba cortada
+                }
+                transport = null;
+            }
+        }
+
+        private void sendOverTransport(JavaMailSenderImpl sender, MimeMessage message) throws MessagingException {
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+            if (transport == null) {
+                connect(sender);
+            }
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+            } catch (SendFailedException e) {
+                // destinatario rechazado: la conexion sigue sirviendo
+                throw e;
+            } catch (MessagingException e) {
+                // conexion cortada por el servidor o la red
+                close();
+                connect(sender);
+                transport.sendMessage(message, message.getAllRecipients());
+            }
+        }
 
-            System.out.println("Correo enviado con éxito a: " + event.getTo());
-        } catch (MailException | MessagingException e) {
-            System.err.println("Error al enviar el correo electrónico:");
-            System.err.println("Mensaje de error: " + e.getMessage());
-            e.printStackTrace();
+        //deja abierta una conexion autenticada, reutilizando la anterior si sigue viva y no estuvo ociosa demasiado tiempo.
+        //isConnected() hace un NOOP al servidor, por eso se verifica una vez por lote y no por mensaje
+        private void connect(JavaMailSenderImpl sender) throws MessagingException {
+            if (transport != null
+                    && (System.currentTimeMillis() - lastUsedMillis > IDLE_TIMEOUT_MS || !transport.isConnected())) {
+                close();
+            }
+            if (transport == null) {
+                Transport connecting = sender.getSession().getTransport(
+                        sender.getProtocol() != null ? sender.getProtocol() : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+                connecting.connect(sender.getHost(), sender.getPort(), emptyToNull(sender.getUsername()),
+                        emptyToNull(sender.getPassword()));
+                transport = connecting;
+            }
+            lastUsedMillis = System.currentTimeMillis();
         }
     }
 }
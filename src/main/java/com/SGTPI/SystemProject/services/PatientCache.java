@@ -0,0 +1,143 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.Patient;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import com.SGTPI.SystemProject.utils.PhoneNumbers;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//cache de pacientes acotado por tamaño y tiempo, con doble clave (id y telefono).
+//Guarda copias sin la coleccion de turnos ni los textos diferidos (observaciones y primera consulta)
+//y devuelve siempre copias, nunca entidades administradas.
+//Metricas: cache.gets/cache.puts/cache.evictions con cache=patients.byId y cache=patients.byPhone
+@Service
+public class PatientCache {
+
+    private final PatientRepository patientRepository;
+
+    private final Cache<Integer, Patient> byId;
+
+    //indice secundario: telefono -> id
+    private final Cache<String, Integer> idByPhone;
+
+    public PatientCache(PatientRepository patientRepository, MeterRegistry meterRegistry,
+                        @Value("${patients.cache.max-size:10000}") long maxSize,
+                        @Value("${patients.cache.ttl-minutes:30}") long ttlMinutes) {
+        this.patientRepository = patientRepository;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        this.idByPhone = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "patients.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByPhone, "patients.byPhone");
+    }
+
+    //obtener paciente por id (de la cache o de la BD)
+    public Optional<Patient> findById(Integer id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Patient cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+        return patientRepository.findById(id).map(this::put);
+    }
+
+    //obtener paciente por numero de telefono (de la cache o de la BD).
+    //Se busca sin separadores, que es como se guardan; si no aparece se prueba el texto tal cual,
+    //para los pacientes guardados antes de normalizar los telefonos
+    public Optional<Patient> findByPhoneNumber(String phoneNumber) {
+        if (phoneNumber == null) {
+            return Optional.empty();
+        }
+        String normalized = PhoneNumbers.normalize(phoneNumber);
+        Optional<Patient> patient = findByExactPhoneNumber(normalized);
+        if (patient.isEmpty() && !normalized.equals(phoneNumber)) {
+            patient = findByExactPhoneNumber(phoneNumber);
+        }
+        return patient;
+    }
+
+    private Optional<Patient> findByExactPhoneNumber(String phoneNumber) {
+        Integer id = idByPhone.getIfPresent(phoneNumber);
+        if (id != null) {
+            Patient cached = byId.getIfPresent(id);
+            if (cached != null && Objects.equals(cached.getPhoneNumber(), phoneNumber)) {
+                return Optional.of(copyOf(cached));
+            }
+        }
+        return patientRepository.findByPhoneNumber(phoneNumber).map(this::put);
+    }
+
+    //descartar las entradas del paciente ahora y otra vez al terminar la transaccion actual,
+    //para que una lectura concurrente no vuelva a guardar los datos viejos antes del commit
+    public void invalidate(Integer id, String... phoneNumbers) {
+        evict(id, phoneNumbers);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id, phoneNumbers);
+                }
+            });
+        }
+    }
+
+    //descartar toda la cache
+    public void clear() {
+        byId.invalidateAll();
+        idByPhone.invalidateAll();
+    }
+
+    private void evict(Integer id, String... phoneNumbers) {
+        if (id != null) {
+            Patient cached = byId.getIfPresent(id);
+            if (cached != null && cached.getPhoneNumber() != null) {
+                idByPhone.invalidate(cached.getPhoneNumber());
+            }
+            byId.invalidate(id);
+        }
+        for (String phoneNumber : phoneNumbers) {
+            if (phoneNumber != null) {
+                idByPhone.invalidate(phoneNumber);
+            }
+        }
+    }
+
+    //guarda una copia del paciente leido de la BD y devuelve otra para el llamador
+    private Patient put(Patient patient) {
+        Patient copy = copyOf(patient);
+        byId.put(copy.getId(), copy);
+        if (copy.getPhoneNumber() != null) {
+            idByPhone.put(copy.getPhoneNumber(), copy.getId());
+        }
+        return copyOf(copy);
+    }
+
+    private static Patient copyOf(Patient patient) {
+        return Patient.builder()
+                .id(patient.getId())
+                .firstName(patient.getFirstName())
+                .lastName(patient.getLastName())
+                .email(patient.getEmail())
+                .phoneNumber(patient.getPhoneNumber())
+                .usualSchedule(patient.getUsualSchedule())
+                .build();
+    }
+}
@@ -0,0 +1,278 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.PatientImportErrorDto;
+import com.SGTPI.SystemProject.dto.PatientImportResultDto;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import com.SGTPI.SystemProject.utils.PhoneNumbers;
+import com.SGTPI.SystemProject.utils.SpreadsheetRowReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.apache.commons.validator.EmailValidator;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//importacion masiva de pacientes desde CSV o XLSX.
+//El archivo se lee fila por fila; las filas validas se juntan en bloques de CHUNK_SIZE, se descartan los telefonos
+//que ya existen (una consulta por bloque) y se insertan con un batch JDBC real por bloque.
+//Patient usa IDENTITY, que desactiva el batch de inserts de Hibernate, por eso el insert va por JdbcTemplate:
+//con rewriteBatchedStatements=true el driver de MySQL lo envia como un unico INSERT multi-fila
+@Service
+public class PatientImportService {
+
+    //formatos de importacion soportados
+    public enum Format {
+        CSV, XLSX;
+
+        //formato segun la extension del archivo
+        public static Format fromFilename(String filename) {
+            String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv") || name.endsWith(".txt")) {
+                return CSV;
+            }
+            if (name.endsWith(".xlsx")) {
+                return XLSX;
+            }
+            throw new IllegalArgumentException("Formato de archivo no soportado (usar .csv o .xlsx): " + filename);
+        }
+    }
+
+    //filas por consulta de duplicados y por batch de insert
+    private static final int CHUNK_SIZE = 500;
+
+    //cantidad maxima de filas rechazadas que se detallan en el resultado
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO patient_tbl (first_name, last_name, email, phone_number) VALUES (?, ?, ?, ?)";
+
+    //telefono: digitos (opcionalmente con + inicial) una vez quitados espacios, guiones, puntos y parentesis
+    private static final Pattern PHONE = Pattern.compile("\\+?\\d{6,15}");
+
+    private static final Pattern NON_LETTERS = Pattern.compile("[^a-z]");
+
+    //columnas del archivo; el encabezado acepta nombres en español o en ingles
+    private enum Column {
+        FIRST_NAME, LAST_NAME, EMAIL, PHONE_NUMBER
+    }
+
+    private static final Map<String, Column> HEADER_ALIASES = Map.ofEntries(
+            Map.entry("firstname", Column.FIRST_NAME),
+            Map.entry("nombre", Column.FIRST_NAME),
+            Map.entry("lastname", Column.LAST_NAME),
+            Map.entry("apellido", Column.LAST_NAME),
+            Map.entry("email", Column.EMAIL),
+            Map.entry("mail", Column.EMAIL),
+            Map.entry("correo", Column.EMAIL),
+            Map.entry("phonenumber", Column.PHONE_NUMBER),
+            Map.entry("phone", Column.PHONE_NUMBER),
+            Map.entry("telefono", Column.PHONE_NUMBER),
+            Map.entry("celular", Column.PHONE_NUMBER)
+    );
+
+    private final PatientRepository patientRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PatientSearchIndex searchIndex;
+
+    public PatientImportService(PatientRepository patientRepository, JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate, PatientSearchIndex searchIndex) {
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.searchIndex = searchIndex;
+    }
+
+    //importar los pacientes del archivo filename (el formato se toma de la extension)
+    public PatientImportResultDto importPatients(String filename, InputStream in) throws IOException {
+        Format format = Format.fromFilename(filename);
+        Importer importer = new Importer();
+        long start = System.nanoTime();
+
+        if (format == Format.CSV) {
+            SpreadsheetRowReader.readCsv(in, importer::row);
+        } else {
+            // el XLSX es un zip: se copia a un archivo temporal para que POI lo lea desde disco y no en memoria
+            Path temp = Files.createTempFile("patients-import-", ".xlsx");
+            try {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                SpreadsheetRowReader.readXlsx(temp.toFile(), importer::row);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        importer.flush();
+
+        if (importer.imported > 0) {
+            // los pacientes nuevos no pasan por PatientService: se recarga el indice de busqueda una vez
+            searchIndex.rebuild();
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        return new PatientImportResultDto(importer.totalRows, importer.imported, importer.rejected,
+                List.copyOf(importer.errors), elapsedMillis, importer.totalRows * 1000L / elapsedMillis);
+    }
+
+    //estado de una importacion: encabezado, bloque pendiente y totales
+    private final class Importer {
+
+        private Map<Column, Integer> columns;
+        private final List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        //telefono -> fila donde aparecio por primera vez (duplicados dentro del archivo)
+        private final Map<String, Integer> seenPhones = new HashMap<>();
+        private final List<PatientImportErrorDto> errors = new ArrayList<>();
+        private int totalRows;
+        private int imported;
+        private int rejected;
+
+        void row(int rowNumber, List<String> cells) {
+            if (columns == null) {
+                columns = readHeader(cells);
+                return;
+            }
+            totalRows++;
+
+            String firstName = cell(cells, Column.FIRST_NAME);
+            String lastName = cell(cells, Column.LAST_NAME);
+            String email = cell(cells, Column.EMAIL);
+            String phone = PhoneNumbers.normalize(cell(cells, Column.PHONE_NUMBER));
+
+            String error = validate(firstName, lastName, email, phone);
+            if (error == null) {
+                Integer firstRow = seenPhones.putIfAbsent(phone, rowNumber);
+                if (firstRow != null) {
+                    error = "Teléfono repetido en el archivo (fila " + firstRow + ")";
+                }
+            }
+            if (error != null) {
+                reject(rowNumber, phone, error);
+                return;
+            }
+
+            chunk.add(new ImportRow(rowNumber, firstName, lastName, email.isEmpty() ? null : email, phone));
+            if (chunk.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        //descarta los telefonos que ya existen e inserta el resto del bloque en un batch
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Set<String> existing = patientRepository.findExistingPhoneNumbers(chunk.stream().map(ImportRow::phoneNumber).toList());
+            List<ImportRow> toInsert = new ArrayList<>(chunk.size());
+            for (ImportRow row : chunk) {
+                if (existing.contains(row.phoneNumber())) {
+                    reject(row.rowNumber(), row.phoneNumber(), "Ya existe un paciente con ese teléfono");
+                } else {
+                    toInsert.add(row);
+                }
+            }
+            chunk.clear();
+            if (toInsert.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(toInsert));
+                imported += toInsert.size();
+            } catch (DataIntegrityViolationException e) {
+                // otro usuario cargo alguno de los telefonos entre la consulta y el insert:
+                // se reintenta fila por fila para saber cuales fallan
+                for (ImportRow row : toInsert) {
+                    try {
+                        insertBatch(List.of(row));
+                        imported++;
+                    } catch (DataIntegrityViolationException rowError) {
+                        reject(row.rowNumber(), row.phoneNumber(), "Ya existe un paciente con ese teléfono");
+                    }
+                }
+            }
+        }
+
+        private void insertBatch(List<ImportRow> rows) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows, CHUNK_SIZE, (ps, row) -> {
+                ps.setString(1, row.firstName());
+                ps.setString(2, row.lastName());
+                ps.setString(3, row.email());
+                ps.setString(4, row.phoneNumber());
+            });
+        }
+
+        private void reject(int rowNumber, String phone, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new PatientImportErrorDto(rowNumber, phone, message));
+            }
+        }
+
+        private String cell(List<String> cells, Column column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= cells.size()) {
+                return "";
+            }
+            return cells.get(index).trim();
+        }
+    }
+
+    //posicion de cada columna segun el encabezado (primera fila)
+    private static Map<Column, Integer> readHeader(List<String> cells) {
+        Map<Column, Integer> columns = new EnumMap<>(Column.class);
+        for (int i = 0; i < cells.size(); i++) {
+            String name = NON_LETTERS.matcher(PatientSearchIndex.normalize(cells.get(i))).replaceAll("");
+            Column column = HEADER_ALIASES.get(name);
+            if (column != null) {
+                columns.putIfAbsent(column, i);
+            }
+        }
+        for (Column required : List.of(Column.FIRST_NAME, Column.LAST_NAME, Column.PHONE_NUMBER)) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Falta la columna obligatoria " + required.name().toLowerCase(Locale.ROOT)
+                        + " en el encabezado (nombre, apellido, telefono, email)");
+            }
+        }
+        return columns;
+    }
+
+    //mensaje de error de la fila, o null si es valida
+    private static String validate(String firstName, String lastName, String email, String phone) {
+        if (firstName.isEmpty()) {
+            return "El nombre es obligatorio";
+        }
+        if (lastName.isEmpty()) {
+            return "El apellido es obligatorio";
+        }
+        if (firstName.length() > MAX_TEXT_LENGTH || lastName.length() > MAX_TEXT_LENGTH || email.length() > MAX_TEXT_LENGTH) {
+            return "Los campos no pueden superar los " + MAX_TEXT_LENGTH + " caracteres";
+        }
+        if (!PHONE.matcher(phone).matches()) {
+            return "Teléfono inválido";
+        }
+        if (!email.isEmpty() && !EmailValidator.getInstance().isValid(email)) {
+            return "Email inválido";
+        }
+        return null;
+    }
+
+    //fila valida pendiente de insertar
+    private record ImportRow(int rowNumber, String firstName, String lastName, String email, String phoneNumber) {
+    }
+}
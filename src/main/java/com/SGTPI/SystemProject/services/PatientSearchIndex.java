@@ -0,0 +1,253 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//indice de busqueda de pacientes en memoria.
+//Cada paciente se parte en tokens normalizados (sin acentos, en minusculas): palabras del nombre y apellido,
+//partes del email y el telefono solo con digitos. Los tokens se guardan ordenados, asi una busqueda por prefijo
+//es un subMap del TreeMap. Se carga al iniciar la aplicacion y PatientService lo mantiene al dia
+@Service
+public class PatientSearchIndex {
+
+    //cantidad maxima de resultados de una busqueda
+    public static final int MAX_RESULTS = 50;
+
+    //peso de cada campo en el ranking
+    private static final int LAST_NAME_WEIGHT = 4;
+    private static final int FIRST_NAME_WEIGHT = 3;
+    private static final int PHONE_WEIGHT = 2;
+    private static final int EMAIL_WEIGHT = 1;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D+");
+
+    //orden de los resultados con el mismo puntaje: apellido, nombre, id
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::sortKey)
+            .thenComparing(entry -> entry.patient().id());
+
+    private final PatientRepository patientRepository;
+
+    //token -> (id de paciente -> peso del campo donde aparece)
+    private final NavigableMap<String, Map<Integer, Integer>> tokens = new TreeMap<>();
+
+    //id de paciente -> paciente indexado
+    private final Map<Integer, Entry> patients = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public PatientSearchIndex(PatientRepository patientRepository) {
+        this.patientRepository = patientRepository;
+    }
+
+    //carga inicial al terminar de levantar la aplicacion
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<PatientDto> all = patientRepository.findAllForIndex();
+        lock.writeLock().lock();
+        try {
+            tokens.clear();
+            patients.clear();
+            all.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //buscar los limit pacientes que mejor coinciden con query.
+    //Cada palabra de la busqueda debe ser prefijo de algun token del paciente
+    public List<PatientDto> search(String query, int limit) {
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("La cantidad de resultados debe estar entre 1 y " + MAX_RESULTS);
+        }
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = null;
+            for (String term : terms) {
+                Map<Integer, Integer> termScores = match(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // todas las palabras deben coincidir
+                    Map<Integer, Integer> current = termScores;
+                    scores.keySet().retainAll(current.keySet());
+                    scores.replaceAll((id, score) -> score + current.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            // top-K: cola acotada con el peor resultado en la cabeza
+            Comparator<Map.Entry<Integer, Integer>> ranking = Comparator
+                    .<Map.Entry<Integer, Integer>>comparingInt(Map.Entry::getValue)
+                    .thenComparing((a, b) -> BY_NAME.compare(patients.get(b.getKey()), patients.get(a.getKey())));
+            PriorityQueue<Map.Entry<Integer, Integer>> top = new PriorityQueue<>(limit + 1, ranking);
+            for (Map.Entry<Integer, Integer> candidate : scores.entrySet()) {
+                top.add(candidate);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<PatientDto> result = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                result.add(patients.get(top.poll().getKey()).patient());
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //actualizar el paciente en el indice cuando la transaccion actual confirme
+    public void putAfterCommit(PatientDto patient) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(patient);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(patient);
+            }
+        });
+    }
+
+    //agregar o reemplazar un paciente
+    public void put(PatientDto patient) {
+        lock.writeLock().lock();
+        try {
+            remove(patient.id());
+            add(patient);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //cantidad de pacientes indexados
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return patients.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //texto sin acentos y en minusculas
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return folded.toLowerCase(Locale.ROOT);
+    }
+
+    //pacientes con algun token que empieza con term, con el mejor peso de sus tokens coincidentes
+    private Map<Integer, Integer> match(String term) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Integer>> token : tokens.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            // coincidencia exacta del token vale el doble que una de prefijo
+            int factor = token.getKey().length() == term.length() ? 2 : 1;
+            token.getValue().forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+        }
+        return scores;
+    }
+
+    private void add(PatientDto patient) {
+        Map<String, Integer> weights = new HashMap<>();
+        words(patient.lastName()).forEach(word -> weights.merge(word, LAST_NAME_WEIGHT, Math::max));
+        words(patient.firstName()).forEach(word -> weights.merge(word, FIRST_NAME_WEIGHT, Math::max));
+        String phone = patient.phoneNumber() == null ? "" : NON_DIGITS.matcher(patient.phoneNumber()).replaceAll("");
+        if (!phone.isEmpty()) {
+            weights.merge(phone, PHONE_WEIGHT, Math::max);
+        }
+        String email = normalize(patient.email());
+        if (!email.isEmpty()) {
+            weights.merge(email, EMAIL_WEIGHT, Math::max);
+            words(email).forEach(word -> weights.merge(word, EMAIL_WEIGHT, Math::max));
+        }
+
+        weights.forEach((token, weight) -> tokens.computeIfAbsent(token, t -> new HashMap<>()).put(patient.id(), weight));
+        String sortKey = normalize(patient.lastName()) + " " + normalize(patient.firstName());
+        patients.put(patient.id(), new Entry(patient, sortKey, Set.copyOf(weights.keySet())));
+    }
+
+    private void remove(Integer id) {
+        Entry previous = patients.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String token : previous.tokens()) {
+            Map<Integer, Integer> ids = tokens.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+    }
+
+    //palabras de la busqueda; las que son solo un telefono se reducen a sus digitos
+    private static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String raw : query.trim().split("\\s+")) {
+            String digits = NON_DIGITS.matcher(raw).replaceAll("");
+            if (!digits.isEmpty() && raw.matches("[\\d()+\\-.]+")) {
+                terms.add(digits);
+            } else if (raw.contains("@")) {
+                terms.add(normalize(raw));
+            } else {
+                terms.addAll(words(raw));
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : SEPARATORS.split(normalize(text))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    //paciente indexado: datos a devolver, clave de orden y tokens (para poder sacarlo del indice)
+    private record Entry(PatientDto patient, String sortKey, Set<String> tokens) {
+    }
+}
@@ -1,16 +1,21 @@
 package com.SGTPI.SystemProject.services;
 
 import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.dto.PatientPageDto;
+import com.SGTPI.SystemProject.dto.PatientPatchDto;
 import com.SGTPI.SystemProject.mappers.PatientMapper;
 import com.SGTPI.SystemProject.models.Patient;
 import com.SGTPI.SystemProject.repositories.PatientRepository;
+import com.SGTPI.SystemProject.utils.PhoneNumbers;
 import jakarta.transaction.Transactional;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 //logica de negocio de paciente
@@ -19,11 +24,18 @@ public class PatientService {
 
     private final PatientRepository patientRepository;
     private final PatientMapper patientMapper;
+    private final PatientCache patientCache;
+    private final PatientSearchIndex searchIndex;
+
+    //tamaño maximo de pagina del listado de pacientes
+    private static final int MAX_PAGE_SIZE = 100;
 
     public PatientService(PatientRepository patientRepository,
-            PatientMapper patientMapper) {
+            PatientMapper patientMapper, PatientCache patientCache, PatientSearchIndex searchIndex) {
         this.patientRepository = patientRepository;
         this.patientMapper = patientMapper;
+        this.patientCache = patientCache;
+        this.searchIndex = searchIndex;
     }
 
     //crear paciente
@@ -42,11 +54,21 @@ public class PatientService {
             throw new IllegalArgumentException("El apellido es obligatorio");
         }
 
-        // Conversión y guardado
+        // Conversión y guardado (el telefono sin separadores, igual que en la importacion)
         Patient patient = patientMapper.dtoToPatient(patientDto);
-        Patient savedPatient = patientRepository.save(patient);
+        patient.setPhoneNumber(PhoneNumbers.normalize(patient.getPhoneNumber()));
+        Patient savedPatient;
+        try {
+            savedPatient = patientRepository.save(patient);
+        } catch (DataIntegrityViolationException e) {
+            // indice unico de phone_number
+            throw new IllegalArgumentException("Ya existe un paciente con el número de teléfono " + patient.getPhoneNumber());
+        }
+        patientCache.invalidate(savedPatient.getId(), savedPatient.getPhoneNumber());
 
-        return patientMapper.patientToDto(savedPatient);
+        PatientDto saved = patientMapper.patientToDto(savedPatient);
+        searchIndex.putAfterCommit(saved);
+        return saved;
     }
 
     //obtener paciente por Id
@@ -65,6 +87,23 @@ public class PatientService {
                 .toList();
     }
 
+    //pagina del listado de pacientes ordenado por apellido y nombre
+    public PatientPageDto getPatientsPage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("La pagina no puede ser negativa");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de pagina debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        Page<PatientDto> result = patientRepository.findPage(PageRequest.of(page, size));
+        return new PatientPageDto(result.getContent(), page, size, result.getTotalElements(), result.getTotalPages());
+    }
+
+    //buscar pacientes por nombre, apellido, telefono o email (desde el indice en memoria)
+    public List<PatientDto> searchPatients(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
     //actualizar las observaciones de un paciente
     @Transactional
     public String setObservations(Observations observations) {
@@ -76,41 +115,57 @@ public class PatientService {
                 observations.getPhoneNumber(),
                 observations.getObservations()
         );
+        patientCache.invalidate(null, observations.getPhoneNumber());
 
         return updatedRows > 0
                 ? "Observaciones actualizadas correctamente"
                 : "No se encontró el paciente con ID: " + observations.getPhoneNumber();
     }
 
+    //obtener las observaciones de un paciente (consulta escalar: es un campo diferido y no se guarda en la cache)
     public Optional<String> getObservations(String phoneNumber) {
         return patientRepository.getObservations(phoneNumber);
     }
 
-    //modificar/actualizar paciente pasando id y datos
+    //modificar/actualizar paciente pasando id y datos (solo los campos presentes en el body;
+    //un email enviado como null se borra)
     @Transactional
-    public PatientDto partialUpdate(Integer id, Map<String, Object> updates) {
+    public PatientDto partialUpdate(Integer id, PatientPatchDto patch) {
         Patient patient = patientRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Paciente no encontrado"));
+        String previousPhoneNumber = patient.getPhoneNumber();
+
+        if (patch.firstName() != null) {
+            patient.setFirstName(requireText(patch.firstName(), "El nombre"));
+        }
+        if (patch.lastName() != null) {
+            patient.setLastName(requireText(patch.lastName(), "El apellido"));
+        }
+        if (patch.email() != null) {
+            patient.setEmail(patch.email().orElse(null));
+        }
+        if (patch.phoneNumber() != null) {
+            patient.setPhoneNumber(requireText(patch.phoneNumber().map(PhoneNumbers::normalize), "El telefono"));
+        }
+
+        Patient updated;
+        try {
+            // el flush hace que un telefono repetido falle aca y no al confirmar
+            updated = patientRepository.saveAndFlush(patient);
+        } catch (DataIntegrityViolationException e) {
+            // indice unico de phone_number
+            throw new IllegalArgumentException("Ya existe un paciente con el número de teléfono " + patient.getPhoneNumber());
+        }
+        patientCache.invalidate(id, previousPhoneNumber, updated.getPhoneNumber());
+        PatientDto dto = patientMapper.patientToDto(updated);
+        searchIndex.putAfterCommit(dto);
+        return dto;
+    }
 
-        updates.forEach((key, value) -> {
-            switch (key) {
-                case "firstName":
-                    patient.setFirstName((String) value);
-                    break;
-                case "lastName":
-                    patient.setLastName((String) value);
-                    break;
-                case "email":
-                    patient.setEmail((String) value);
-                    break;
-                case "phoneNumber":
-                    patient.setPhoneNumber(value.toString());
-                    break;
-            }
-        });
-
-        Patient updated = patientRepository.save(patient);
-        return patientMapper.patientToDto(updated);
+    //texto obligatorio de un patch: no puede enviarse null ni vacio
+    private static String requireText(Optional<String> value, String field) {
+        return value.filter(text -> !text.isBlank())
+                .orElseThrow(() -> new IllegalArgumentException(field + " no puede estar vacío"));
     }
 
     //clase estatica observations
@@ -0,0 +1,102 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.Professional;
+import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
+import com.SGTPI.SystemProject.utils.WorkingHours;
+import jakarta.persistence.EntityManager;
+import java.util.Optional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//datos de referencia del profesional (solo puede haber uno): se cargan al iniciar la aplicacion
+//y se sirven como una instantanea inmutable con los horarios de atencion ya parseados.
+//Se vuelve a leer cuando ProfessionalService guarda cambios
+@Service
+public class ProfessionalCache {
+
+    //id del unico profesional del sistema
+    public static final int DEFAULT_PROFESSIONAL_ID = 1;
+
+    private final ProfessionalRepository professionalRepository;
+
+    private final EntityManager entityManager;
+
+    //null = todavia no se cargo; Optional.empty() = no habia profesional en la BD (se reintenta en el proximo uso)
+    private volatile Optional<ProfessionalSnapshot> snapshot;
+
+    public ProfessionalCache(ProfessionalRepository professionalRepository, EntityManager entityManager) {
+        this.professionalRepository = professionalRepository;
+        this.entityManager = entityManager;
+    }
+
+    //carga inicial al terminar de levantar la aplicacion
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        reload();
+    }
+
+    //instantanea actual del profesional (se carga en el primer uso si todavia no se cargo o no existia)
+    public Optional<ProfessionalSnapshot> current() {
+        Optional<ProfessionalSnapshot> current = snapshot;
+        if (current == null || current.isEmpty()) {
+            current = reload();
+        }
+        return current;
+    }
+
+    //horarios de atencion del profesional, o la grilla por defecto si no hay profesional
+    public WorkingHours workingHours() {
+        return current().map(ProfessionalSnapshot::workingHours).orElse(WorkingHours.DEFAULT);
+    }
+
+    //referencia al profesional para asignarla a una asociacion (turno, reporte) sin consultar la BD.
+    //Devuelve null si el profesional no existe
+    public Professional reference() {
+        return current().map(professional -> reference(professional.id())).orElse(null);
+    }
+
+    //referencia al profesional con el id dado; solo se consulta la BD si no es el profesional cacheado
+    public Professional reference(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        Optional<ProfessionalSnapshot> current = current();
+        if (current.isPresent() && current.get().id().equals(id)) {
+            return entityManager.getReference(Professional.class, id);
+        }
+        return professionalRepository.findById(id.intValue());
+    }
+
+    //volver a leer el profesional de la BD
+    public Optional<ProfessionalSnapshot> reload() {
+        Optional<ProfessionalSnapshot> loaded = Optional.ofNullable(professionalRepository.findById(DEFAULT_PROFESSIONAL_ID))
+                .map(ProfessionalSnapshot::of);
+        snapshot = loaded;
+        return loaded;
+    }
+
+    //volver a leer el profesional cuando la transaccion actual confirme (o inmediatamente si no hay transaccion)
+    public void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    //instantanea inmutable del profesional (sin la contraseña ni las colecciones)
+    public record ProfessionalSnapshot(Integer id, String email, WorkingHours workingHours) {
+
+        static ProfessionalSnapshot of(Professional professional) {
+            return new ProfessionalSnapshot(professional.getId(), professional.getEmail(), WorkingHours.of(professional));
+        }
+    }
+}
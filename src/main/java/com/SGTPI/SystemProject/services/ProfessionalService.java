@@ -11,8 +11,11 @@ public class ProfessionalService {
     
     private final ProfessionalRepository professionalRepository;
 
-    public ProfessionalService(ProfessionalRepository professionalRepository) {
+    private final ProfessionalCache professionalCache;
+
+    public ProfessionalService(ProfessionalRepository professionalRepository, ProfessionalCache professionalCache) {
         this.professionalRepository = professionalRepository;
+        this.professionalCache = professionalCache;
     }
 
     //obtener paciente (solo puede haber uno)
@@ -20,11 +23,13 @@ public class ProfessionalService {
          return professionalRepository.findById(1);
     }
     
-    //crear professional
+    //crear professional (y refrescar los datos de referencia cacheados)
     public Professional createProfessional(Professional professional){
         String email = professional.getEmail();
         String password = professional.getPassword();
-        return professionalRepository.save(new Professional(email,password));
+        Professional saved = professionalRepository.save(new Professional(email,password));
+        professionalCache.reloadAfterCommit();
+        return saved;
     }
     
 }
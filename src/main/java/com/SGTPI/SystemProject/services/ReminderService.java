@@ -3,18 +3,22 @@ package com.SGTPI.SystemProject.services;
 import com.SGTPI.SystemProject.dto.ReminderDto;
 import com.SGTPI.SystemProject.exceptions.AppointmentCancellationException;
 import com.SGTPI.SystemProject.models.Appointment;
-import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.models.EmailLane;
 import com.SGTPI.SystemProject.models.Reminder;
 import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import com.SGTPI.SystemProject.utils.EmailBatchEvent;
 import com.SGTPI.SystemProject.utils.EmailEvent;
+import com.SGTPI.SystemProject.utils.RemindersDueEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 //logica de negocio de los recordatorios
@@ -30,60 +34,102 @@ public class ReminderService {
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
 
+    //horas antes del turno hasta las que se puede cancelar desde el recordatorio
+    private static final int CANCELLATION_WINDOW_HOURS = 48;
 
+    //recordatorios por transaccion
+    private static final int CHUNK_SIZE = 100;
 
-     // Tarea programada que se ejecuta cada 15 minutos.
-     // Busca recordatorios pendientes de enviar.
+     // Se ejecuta cuando ReminderTimer avisa que vencio algun recordatorio.
+     // Envia los recordatorios vencidos (la consulta ya filtra por hora de envio, estado del turno y ventana
+     // de cancelacion) y descarta los que ya no se van a enviar, asi el costo depende de los recordatorios
+     // vencidos y no de todos los pendientes.
+     // Se procesa en bloques de CHUNK_SIZE, cada uno en su propia transaccion: el bloque se marca como enviado
+     // con un UPDATE masivo y sus correos salen recien cuando confirma. Los bloques confirmados quedan marcados,
+     // asi que si el proceso se corta la proxima ejecucion sigue desde los que faltan, sin repetir correos.
+     // Cada bloque se reclama con SKIP LOCKED: con varias replicas cada una envia recordatorios distintos.
 
-    @Scheduled(cron = "0 */15 * * * *")
-    @Transactional
+    @EventListener(RemindersDueEvent.class)
     public void sendPendingReminders() {
-        // Busca todos los recordatorios que no se han enviado
-        List<Reminder> pendingReminders = reminderRepository.findAllByIsSentFalse();
+        LocalDateTime now = LocalDateTime.now();
+        // el turno tiene que estar a mas de 48 horas para que el paciente pueda cancelarlo desde el correo
+        LocalDateTime windowEnd = now.plusHours(CANCELLATION_WINDOW_HOURS);
+
+        int lastId = 0;
+        List<Integer> chunk;
+        do {
+            int afterId = lastId;
+            chunk = transactionTemplate.execute(status -> sendChunk(now, windowEnd, afterId));
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == CHUNK_SIZE);
 
-        for (Reminder reminder : pendingReminders) {
-            Appointment appointment = reminder.getAppointment();
-            LocalDateTime now = LocalDateTime.now();
-
-            // Condición para enviar: El tiempo de envío ya pasó y el turno no está cancelado.
-            // También verifica que el turno esté a más de 48 horas de distancia para cumplir con la lógica de recuperación
-            if (now.isAfter(reminder.getSendTime()) && now.isBefore(appointment.getDate().minusHours(48)) &&
-                    appointment.getStatus() != AppointmentStatus.CANCELADO) {
-
-                // Lógica para enviar el correo
-                String to = appointment.getPatient().getEmail();
-                String subject = "Recordatorio de Turno Próximo #" + appointment.getId();
-                StringBuilder body = new StringBuilder();
-                body.append("<h1>¡Hola, ").append(appointment.getPatient().getFirstName()).append("!</h1>");
-                body.append("<p>Este es un recordatorio para tu próximo turno. Por favor, confirma o cancela tu asistencia.</p>");
-                body.append("<ul>");
-                body.append("<li><strong>Fecha y Hora:</strong> ").append(appointment.getDate().format(FORMATTER)).append("</li>");
-                body.append("</ul>");
-
-                body.append("<p>Tiene hasta 48hs antes de la cita para cancelar</p>");
-
-                body.append("<p>¿Desea canelar su turno?</p>");
-                // --- Botón de Cancelar ---
-                body.append("<a href=\"http://localhost:4200/cancel/").append(reminder.getId()).append("\" ");                body.append("style=\"");
-                body.append("display: inline-block; padding: 10px 20px; font-size: 16px; color: #FFFFFF; ");
-                body.append("background-color: #EF4444; text-decoration: none; border-radius: 5px; ");
-                body.append("font-weight: bold;");
-                body.append("\">");
-                body.append("Cancelar Turno");
-                body.append("</a>");
-
-                body.append("<p>Atentamente, Equipo Médico.</p>");
-
-                // Publicamos el evento para el envío asíncrono
-                eventPublisher.publishEvent(new EmailEvent(this, to, subject, body.toString()));
-
-                // Marcar el recordatorio como enviado para evitar que se envíe de nuevo
-                reminder.setSent(true);
-                reminderRepository.save(reminder);
+        transactionTemplate.executeWithoutResult(status -> reminderRepository.markStale(now, windowEnd));
+    }
+
+    //reclama y envia un bloque de recordatorios vencidos con id mayor a afterId y devuelve los ids reclamados.
+    //Los reclamados quedan bloqueados hasta que la transaccion termina: otra replica los saltea y,
+    //si el bloque falla, el rollback los libera sin marcar para la proxima ejecucion
+    private List<Integer> sendChunk(LocalDateTime now, LocalDateTime windowEnd, int afterId) {
+        List<Integer> claimed = reminderRepository.claimDue(now, windowEnd, afterId, CHUNK_SIZE);
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+        List<Reminder> due = reminderRepository.findWithAppointmentByIdIn(claimed);
+
+        List<Integer> ids = new ArrayList<>(due.size());
+        List<EmailEvent> emails = new ArrayList<>(due.size());
+        for (Reminder reminder : due) {
+            ids.add(reminder.getId());
+            if (reminder.getAppointment().getPatient().getEmail() != null) {
+                emails.add(reminderEmail(reminder));
             }
         }
+
+        // Marcar los recordatorios como enviados para evitar que se envíen de nuevo
+        reminderRepository.markSentByIds(ids);
+        if (!emails.isEmpty()) {
+            // los correos se envian cuando la transaccion del bloque confirma
+            eventPublisher.publishEvent(new EmailBatchEvent(this, emails));
+        }
+        return claimed;
+    }
+
+    //correo de recordatorio con el enlace para cancelar el turno
+    private EmailEvent reminderEmail(Reminder reminder) {
+        Appointment appointment = reminder.getAppointment();
+        String to = appointment.getPatient().getEmail();
+        String subject = "Recordatorio de Turno Próximo #" + appointment.getId();
+        StringBuilder body = new StringBuilder();
+        body.append("<h1>¡Hola, ").append(appointment.getPatient().getFirstName()).append("!</h1>");
+        body.append("<p>Este es un recordatorio para tu próximo turno. Por favor, confirma o cancela tu asistencia.</p>");
+        body.append("<ul>");
+        body.append("<li><strong>Fecha y Hora:</strong> ").append(appointment.getDate().format(FORMATTER)).append("</li>");
+        body.append("</ul>");
+
+        body.append("<p>Tiene hasta 48hs antes de la cita para cancelar</p>");
+
+        body.append("<p>¿Desea canelar su turno?</p>");
+        // --- Botón de Cancelar ---
+        body.append("<a href=\"http://localhost:4200/cancel/").append(reminder.getId()).append("\" ");
+        body.append("style=\"");
+        body.append("display: inline-block; padding: 10px 20px; font-size: 16px; color: #FFFFFF; ");
+        body.append("background-color: #EF4444; text-decoration: none; border-radius: 5px; ");
+        body.append("font-weight: bold;");
+        body.append("\">");
+        body.append("Cancelar Turno");
+        body.append("</a>");
+
+        body.append("<p>Atentamente, Equipo Médico.</p>");
+
+        // los recordatorios van por el carril masivo, detras de las confirmaciones y cancelaciones
+        return new EmailEvent(this, to, subject, body.toString(), EmailLane.MASIVO);
     }
 
     //metodo para cancelar un turno desde un recordatorio
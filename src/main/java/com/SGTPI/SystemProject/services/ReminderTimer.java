@@ -0,0 +1,176 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.ReminderScheduleDto;
+import com.SGTPI.SystemProject.models.Reminder;
+import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import com.SGTPI.SystemProject.utils.RemindersDueEvent;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//temporizador de recordatorios en memoria.
+//Guarda en una DelayQueue los recordatorios pendientes que vencen dentro de HORIZON_HOURS (uno por turno);
+//un hilo espera en la cola y, cuando vence alguno, publica RemindersDueEvent para que ReminderService los envie
+//a la hora exacta. Sin recordatorios proximos el hilo queda bloqueado y no consulta la BD.
+//AppointmentService agrega los recordatorios nuevos y quita los de turnos cancelados; una recarga cada hora
+//desde la BD cubre lo que no paso por aca (otro nodo, cambios manuales, reinicios)
+@Service
+public class ReminderTimer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderTimer.class);
+
+    //ventana de recordatorios que se mantienen en memoria (mayor que el periodo de recarga)
+    static final int HORIZON_HOURS = 2;
+
+    private final ReminderRepository reminderRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final DelayQueue<Entry> queue = new DelayQueue<>();
+
+    //id de turno -> entrada programada (para reemplazarla o quitarla)
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    private volatile Thread worker;
+
+    public ReminderTimer(ReminderRepository reminderRepository, ApplicationEventPublisher eventPublisher) {
+        this.reminderRepository = reminderRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    //carga inicial y arranque del hilo al terminar de levantar la aplicacion
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+        Thread thread = new Thread(this::run, "reminder-timer");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    //recarga de control: agrega los recordatorios pendientes que vencen dentro del horizonte.
+    //Los que ya vencieron (por ejemplo durante un reinicio) se disparan enseguida
+    @Scheduled(cron = "0 0 * * * *")
+    public void reload() {
+        List<ReminderScheduleDto> pending = reminderRepository.findPendingUntil(LocalDateTime.now().plusHours(HORIZON_HOURS));
+        synchronized (this) {
+            pending.forEach(reminder -> put(reminder.appointmentId(), reminder.sendTime()));
+        }
+    }
+
+    //programar (o quitar, si ya no se va a enviar) el recordatorio cuando la transaccion actual confirme
+    public void scheduleAfterCommit(Reminder reminder) {
+        Integer appointmentId = reminder.getAppointment().getId();
+        LocalDateTime sendTime = reminder.isSent() ? null : reminder.getSendTime();
+        afterCommit(() -> schedule(appointmentId, sendTime));
+    }
+
+    //quitar los recordatorios de los turnos dados cuando la transaccion actual confirme
+    public void cancelAfterCommit(Collection<Integer> appointmentIds) {
+        List<Integer> ids = List.copyOf(appointmentIds);
+        afterCommit(() -> ids.forEach(id -> schedule(id, null)));
+    }
+
+    //programar el recordatorio del turno para sendTime (null lo quita).
+    //Los que vencen despues del horizonte los agrega la recarga
+    public synchronized void schedule(Integer appointmentId, LocalDateTime sendTime) {
+        if (sendTime == null) {
+            Entry previous = entries.remove(appointmentId);
+            if (previous != null) {
+                queue.remove(previous);
+            }
+        } else if (sendTime.isBefore(LocalDateTime.now().plusHours(HORIZON_HOURS))) {
+            put(appointmentId, sendTime);
+        }
+    }
+
+    //cantidad de recordatorios programados
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void put(Integer appointmentId, LocalDateTime sendTime) {
+        // +1 ms: al disparar, sendTime ya quedo atras aunque tenga fraccion de milisegundo
+        Entry entry = new Entry(appointmentId, sendTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1);
+        Entry previous = entries.put(appointmentId, entry);
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        queue.add(entry);
+    }
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            try {
+                Entry first = queue.take();
+                // se juntan todos los vencidos en un solo envio
+                synchronized (this) {
+                    entries.remove(first.appointmentId(), first);
+                    Entry next;
+                    while ((next = queue.poll()) != null) {
+                        entries.remove(next.appointmentId(), next);
+                    }
+                }
+                eventPublisher.publishEvent(new RemindersDueEvent(this));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // un fallo de envio no detiene el temporizador: la proxima recarga vuelve a programar lo pendiente
+                log.error("Error al enviar recordatorios", e);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    //recordatorio programado: turno y momento de envio en milisegundos
+    private record Entry(Integer appointmentId, long dueAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((Entry) other).dueAtMillis);
+        }
+    }
+}
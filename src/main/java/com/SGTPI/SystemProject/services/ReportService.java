@@ -7,7 +7,6 @@ import com.SGTPI.SystemProject.mappers.ReportMapper;
 import com.SGTPI.SystemProject.models.*;
 import com.SGTPI.SystemProject.repositories.AppointmentRepository;
 import com.SGTPI.SystemProject.repositories.PatientRepository;
-import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
 import com.SGTPI.SystemProject.repositories.ReportRepository;
 import com.lowagie.text.DocumentException;
 import jakarta.annotation.PostConstruct;
@@ -39,7 +38,7 @@ public class ReportService {
 
     private final PatientRepository patientRepository;
 
-    private final ProfessionalRepository professionalRepository;
+    private final ProfessionalCache professionalCache;
 
     private final ReportRepository reportRepository;
 
@@ -51,11 +50,11 @@ public class ReportService {
     @Value("${report.storage.path:./generated-reports}")
     private String reportStoragePath;
 
-    public ReportService(ReportRepository reportRepository, ProfessionalRepository professionalRepository,
+    public ReportService(ReportRepository reportRepository, ProfessionalCache professionalCache,
                          PatientRepository patientRepository, AppointmentRepository appointmentRepository,
                          ReportGenerator reportGenerator,ReportMapper reportMapper) {
         this.reportRepository = reportRepository;
-        this.professionalRepository = professionalRepository;
+        this.professionalCache = professionalCache;
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
         this.reportGenerator = reportGenerator;
@@ -78,7 +77,7 @@ public class ReportService {
     @Transactional
     public ReportResponseDto generateReport(ReportRequestDateDto request) throws IOException, DocumentException {
         // Validar professional
-        Professional professional = professionalRepository.findById(request.professionalId());
+        Professional professional = professionalCache.reference(request.professionalId());
 
         // Preparar data segun ReportType
         Map<String, Object> reportData = fetchDataForReport(request);
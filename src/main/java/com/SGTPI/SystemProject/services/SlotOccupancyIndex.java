@@ -0,0 +1,201 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.AppointmentSlotDto;
+import com.SGTPI.SystemProject.models.Appointment;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//indice en memoria de la ocupacion de las franjas horarias, agrupado por dia.
+//Responde el chequeo de conflictos sin consultar la BD; la restriccion unique de fecha_hora
+//sigue siendo la red de seguridad final.
+@Service
+public class SlotOccupancyIndex {
+
+    //estados que impiden asignar un turno en la franja
+    public static final Set<AppointmentStatus> CONFLICTING_STATUSES = EnumSet.of(
+            AppointmentStatus.CONFIRMADO,
+            AppointmentStatus.BLOQUEADO,
+            AppointmentStatus.CANCELADO
+    );
+
+    private final AppointmentRepository appRepository;
+
+    private final int maxDays;
+
+    private final long ttlMillis;
+
+    //dias cargados en orden de acceso, se descarta el menos usado al superar maxDays
+    private final LinkedHashMap<LocalDate, DaySlots> days;
+
+    //cantidad de escrituras aplicadas al indice; una carga que se cruzo con alguna no se guarda
+    private long modifications;
+
+    public SlotOccupancyIndex(AppointmentRepository appRepository,
+                              @Value("${appointments.slot-index.max-days:400}") int maxDays,
+                              @Value("${appointments.slot-index.ttl-seconds:60}") long ttlSeconds) {
+        this.appRepository = appRepository;
+        this.maxDays = maxDays;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.days = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, DaySlots> eldest) {
+                return size() > SlotOccupancyIndex.this.maxDays;
+            }
+        };
+    }
+
+    //obtener la franja registrada en la fecha/hora dada (si existe un turno en la BD)
+    public Optional<Slot> find(LocalDateTime dateTime) {
+        return Optional.ofNullable(slot(dateTime.toLocalDate(), dateTime.toLocalTime()));
+    }
+
+    //obtener el turno que genera conflicto en la fecha/hora dada, ignorando el turno excludeId
+    public Optional<Slot> findConflict(LocalDateTime dateTime, Integer excludeId) {
+        return find(dateTime)
+                .filter(slot -> CONFLICTING_STATUSES.contains(slot.status()))
+                .filter(slot -> !Objects.equals(slot.id(), excludeId));
+    }
+
+    //registrar el estado actual del turno cuando la transaccion confirme
+    public void recordAfterCommit(Appointment appointment) {
+        recordAfterCommit(appointment, null);
+    }
+
+    //registrar el estado actual del turno cuando la transaccion confirme,
+    //liberando la franja previousDate si el turno fue movido
+    public void recordAfterCommit(Appointment appointment, LocalDateTime previousDate) {
+        Slot slot = new Slot(appointment.getId(), appointment.getStatus());
+        LocalDateTime date = appointment.getDate();
+
+        afterCommit(() -> {
+            if (previousDate != null && !previousDate.equals(date)) {
+                remove(previousDate, slot.id());
+            }
+            put(date, slot);
+        }, date.toLocalDate(), previousDate != null ? previousDate.toLocalDate() : null);
+    }
+
+    //descartar los dias del rango [from, to) cuando termine la transaccion (operaciones masivas)
+    public void evictAfterCommit(LocalDateTime from, LocalDateTime to) {
+        List<LocalDate> touched = new ArrayList<>();
+        for (LocalDate date = from.toLocalDate(); date.atStartOfDay().isBefore(to); date = date.plusDays(1)) {
+            touched.add(date);
+        }
+        afterCommit(() -> touched.forEach(this::evict), touched.toArray(new LocalDate[0]));
+    }
+
+    //descartar un dia para que se vuelva a leer de la BD en la proxima consulta
+    public synchronized void evict(LocalDate date) {
+        modifications++;
+        days.remove(date);
+    }
+
+    //descartar todo el indice
+    public synchronized void clear() {
+        modifications++;
+        days.clear();
+    }
+
+    private synchronized void put(LocalDateTime dateTime, Slot slot) {
+        modifications++;
+        // si el dia no esta cargado no hace falta nada: se leera actualizado de la BD
+        DaySlots day = days.get(dateTime.toLocalDate());
+        if (day != null) {
+            day.slots().put(dateTime.toLocalTime(), slot);
+        }
+    }
+
+    private synchronized void remove(LocalDateTime dateTime, Integer id) {
+        modifications++;
+        DaySlots day = days.get(dateTime.toLocalDate());
+        if (day != null) {
+            day.slots().computeIfPresent(dateTime.toLocalTime(),
+                    (time, current) -> Objects.equals(current.id(), id) ? null : current);
+        }
+    }
+
+    //obtener la franja del dia, cargando el dia de la BD si no esta o vencio el ttl.
+    //La consulta se hace fuera del lock para no frenar las lecturas de los dias ya cargados.
+    private Slot slot(LocalDate date, LocalTime time) {
+        long now = System.currentTimeMillis();
+        long modificationsBefore;
+        synchronized (this) {
+            DaySlots day = days.get(date);
+            if (day != null && now - day.loadedAt() <= ttlMillis) {
+                return day.slots().get(time);
+            }
+            modificationsBefore = modifications;
+        }
+
+        DaySlots loaded = load(date, now);
+
+        synchronized (this) {
+            DaySlots current = days.get(date);
+            if (current != null && current.loadedAt() >= loaded.loadedAt()) {
+                // otro hilo cargo el dia mientras tanto
+                return current.slots().get(time);
+            }
+            // si hubo escrituras durante la consulta la lectura puede no incluirlas:
+            // se responde con ella pero no se guarda, la proxima consulta vuelve a la BD
+            if (modifications == modificationsBefore) {
+                days.put(date, loaded);
+            }
+            return loaded.slots().get(time);
+        }
+    }
+
+    private DaySlots load(LocalDate date, long now) {
+        NavigableMap<LocalTime, Slot> slots = new TreeMap<>();
+        for (AppointmentSlotDto row : appRepository.findSlotsBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+            slots.put(row.date().toLocalTime(), new Slot(row.id(), row.status()));
+        }
+        return new DaySlots(slots, now);
+    }
+
+    //ejecuta la accion al confirmar la transaccion actual (o inmediatamente si no hay transaccion).
+    //Si la transaccion se revierte se descartan los dias tocados para releerlos de la BD.
+    private void afterCommit(Runnable action, LocalDate... touchedDays) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    action.run();
+                    return;
+                }
+                for (LocalDate date : touchedDays) {
+                    if (date != null) {
+                        evict(date);
+                    }
+                }
+            }
+        });
+    }
+
+    //franja ocupada: id del turno y su estado
+    public record Slot(Integer id, AppointmentStatus status) {
+    }
+
+    private record DaySlots(NavigableMap<LocalTime, Slot> slots, long loadedAt) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.SGTPI.SystemProject.utils;
+
+import java.util.List;
+import org.springframework.context.ApplicationEvent;
+
+//evento con varios correos que se envian juntos (operaciones masivas)
+public class EmailBatchEvent extends ApplicationEvent {
+    private final List<EmailEvent> emails;
+
+    public EmailBatchEvent(Object source, List<EmailEvent> emails) {
+        super(source);
+        this.emails = List.copyOf(emails);
+    }
+
+    public List<EmailEvent> getEmails() {
+        return emails;
+    }
+}
@@ -1,17 +1,25 @@
 package com.SGTPI.SystemProject.utils;
 
+import com.SGTPI.SystemProject.models.EmailLane;
 import org.springframework.context.ApplicationEvent;
 
 public class EmailEvent extends ApplicationEvent {
     private String to;
     private String subject;
     private String body;
+    private EmailLane lane;
 
+    //correo transaccional (confirmaciones, cancelaciones, cambios de turno)
     public EmailEvent(Object source, String to, String subject, String body) {
+        this(source, to, subject, body, EmailLane.TRANSACCIONAL);
+    }
+
+    public EmailEvent(Object source, String to, String subject, String body, EmailLane lane) {
         super(source);
         this.to = to;
         this.subject = subject;
         this.body = body;
+        this.lane = lane;
     }
 
     // Getters para los campos
@@ -26,4 +34,8 @@ public class EmailEvent extends ApplicationEvent {
     public String getBody() {
         return body;
     }
+
+    public EmailLane getLane() {
+        return lane;
+    }
 }
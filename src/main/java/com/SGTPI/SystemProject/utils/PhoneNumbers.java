@@ -0,0 +1,18 @@
+package com.SGTPI.SystemProject.utils;
+
+import java.util.regex.Pattern;
+
+//forma unica de los telefonos de paciente: se guardan y se buscan sin separadores,
+//asi "11 2233-4455" y "11-2233-4455" son el mismo telefono ("1122334455") para la BD y las caches
+public final class PhoneNumbers {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-.()]");
+
+    private PhoneNumbers() {
+    }
+
+    //telefono sin espacios, guiones, puntos ni parentesis (null si es null)
+    public static String normalize(String phone) {
+        return phone == null ? null : SEPARATORS.matcher(phone.trim()).replaceAll("");
+    }
+}
@@ -0,0 +1,11 @@
+package com.SGTPI.SystemProject.utils;
+
+import org.springframework.context.ApplicationEvent;
+
+//evento que publica ReminderTimer cuando vence la hora de envio de uno o mas recordatorios
+public class RemindersDueEvent extends ApplicationEvent {
+
+    public RemindersDueEvent(Object source) {
+        super(source);
+    }
+}
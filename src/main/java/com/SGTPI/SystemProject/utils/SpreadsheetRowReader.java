@@ -0,0 +1,153 @@
+package com.SGTPI.SystemProject.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+//lectura fila por fila de planillas CSV y XLSX sin cargar el archivo completo en memoria.
+//Cada fila se entrega al RowHandler apenas se lee (numero de fila desde 1 y celdas como texto)
+public final class SpreadsheetRowReader {
+
+    //recibe cada fila leida
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(int rowNumber, List<String> cells);
+    }
+
+    private SpreadsheetRowReader() {
+    }
+
+    //leer un CSV en UTF-8 separado por coma o punto y coma (se detecta en la primera linea).
+    //Soporta campos entre comillas con comillas dobles escapadas y saltos de linea
+    public static void readCsv(InputStream in, RowHandler handler) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') { // BOM de Excel
+            reader.reset();
+        }
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        char delimiter = 0;
+        boolean quoted = false;
+        int rowNumber = 1;
+        int c;
+        while ((c = reader.read()) != -1) {
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (delimiter == 0 && (ch == ',' || ch == ';')) {
+                delimiter = ch;
+                cells.add(field.toString());
+                field.setLength(0);
+            } else if (ch == delimiter) {
+                cells.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                rowNumber = emit(handler, rowNumber, cells, field);
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+        }
+        if (!field.isEmpty() || !cells.isEmpty()) {
+            emit(handler, rowNumber, cells, field);
+        }
+    }
+
+    //leer la primera hoja de un XLSX con el parser SAX de POI (el archivo se abre desde disco, en solo lectura)
+    public static void readXlsx(File file, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(xssfReader.getStylesTable(), strings,
+                        new SheetRows(handler), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("No se pudo leer el archivo XLSX: " + e.getMessage(), e);
+        }
+    }
+
+    private static int emit(RowHandler handler, int rowNumber, List<String> cells, StringBuilder field) {
+        cells.add(field.toString());
+        field.setLength(0);
+        // las lineas vacias no se entregan pero cuentan para el numero de fila
+        if (cells.size() > 1 || !cells.get(0).isBlank()) {
+            handler.row(rowNumber, List.copyOf(cells));
+        }
+        cells.clear();
+        return rowNumber + 1;
+    }
+
+    //arma las filas a partir de los eventos de celda del parser SAX (las celdas vacias no generan evento)
+    private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+
+        private SheetRows(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!cells.isEmpty()) {
+                handler.row(rowNum + 1, List.copyOf(cells));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = new CellReference(cellReference).getCol();
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.SGTPI.SystemProject.utils;
+
+import com.SGTPI.SystemProject.models.Professional;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+//grilla de franjas horarias: intervalos de atencion [inicio, fin), duracion de cada franja en minutos
+//y dias de la semana en que se atiende
+public record WorkingHours(List<Interval> intervals, int slotMinutes, Set<DayOfWeek> workingDays) {
+
+    //dias de atencion por defecto (el frontend bloquea sabados y domingos)
+    public static final Set<DayOfWeek> WEEKDAYS = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+
+    //grilla por defecto, igual a la que muestra el calendario del frontend (08:00 a 22:00, cada hora)
+    public static final WorkingHours DEFAULT = new WorkingHours(
+            List.of(new Interval(LocalTime.of(8, 0), LocalTime.of(23, 0))), 60, WEEKDAYS);
+
+    //duracion por defecto de un turno creado desde la grilla
+    public static final int DEFAULT_DURATION = 50;
+
+    //construir la grilla a partir de los horarios de mañana y tarde del profesional ("HH:mm" o "HH:mm:ss").
+    //Si el profesional no tiene horarios validos se usa la grilla por defecto
+    public static WorkingHours of(Professional professional) {
+        if (professional == null) {
+            return DEFAULT;
+        }
+        List<Interval> intervals = new ArrayList<>();
+        addInterval(intervals, professional.getMorningOpeningHours(), professional.getMorningClosingHours());
+        addInterval(intervals, professional.getAfternoonOpeningHours(), professional.getAfternoonClosingHours());
+        if (intervals.isEmpty()) {
+            return DEFAULT;
+        }
+        return new WorkingHours(List.copyOf(intervals), DEFAULT.slotMinutes(), WEEKDAYS);
+    }
+
+    private static void addInterval(List<Interval> intervals, String opening, String closing) {
+        LocalTime start = parseTime(opening);
+        LocalTime end = parseTime(closing);
+        if (start != null && end != null && start.isBefore(end)) {
+            intervals.add(new Interval(start, end));
+        }
+    }
+
+    private static LocalTime parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    //indica si se atiende en el dia dado
+    public boolean isWorkingDay(LocalDate date) {
+        return workingDays.contains(date.getDayOfWeek());
+    }
+
+    //duracion de un turno creado desde la grilla: la por defecto, sin pasarse del largo de la franja
+    public int slotDuration() {
+        return Math.min(DEFAULT_DURATION, slotMinutes);
+    }
+
+    //inicios de franja de un dia
+    public List<LocalTime> slotTimes() {
+        List<LocalTime> times = new ArrayList<>();
+        for (Interval interval : intervals) {
+            LocalTime time = interval.start();
+            while (time.isBefore(interval.end())) {
+                times.add(time);
+                LocalTime next = time.plusMinutes(slotMinutes);
+                if (!next.isAfter(time)) { // dio la vuelta a medianoche
+                    break;
+                }
+                time = next;
+            }
+        }
+        return times;
+    }
+
+    //inicios de franja dentro de [from, to), para todos los dias (incluso los que no son de atencion)
+    public List<LocalDateTime> slotsBetween(LocalDateTime from, LocalDateTime to) {
+        List<LocalTime> times = slotTimes();
+        List<LocalDateTime> slots = new ArrayList<>();
+        for (LocalDate day = from.toLocalDate(); day.atStartOfDay().isBefore(to); day = day.plusDays(1)) {
+            for (LocalTime time : times) {
+                LocalDateTime slot = day.atTime(time);
+                if (!slot.isBefore(from) && slot.isBefore(to)) {
+                    slots.add(slot);
+                }
+            }
+        }
+        return slots;
+    }
+
+    //intervalo de atencion [start, end)
+    public record Interval(LocalTime start, LocalTime end) {
+    }
+}
@@ -1,7 +1,9 @@
 package com.SGTPI.SystemProject.controllers;
 
 import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.dto.PatientPatchDto;
 import com.SGTPI.SystemProject.models.Patient;
+import com.SGTPI.SystemProject.services.PatientImportService;
 import com.SGTPI.SystemProject.services.PatientService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,6 +24,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
@@ -38,6 +41,8 @@ public class PatientControllerTest {
     private MockMvc mockMvc;
     @MockBean
     private PatientService patientService;
+    @MockBean
+    private PatientImportService patientImportService;
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -131,12 +136,7 @@ public class PatientControllerTest {
                 "doming@email.com",
                 "31232131231");
 
-        Map<String, Object> updates = new HashMap<>();
-
-        updates.put("lastname","Dominguez");
-        updates.put("email","doming@email.com");
-
-        given(patientService.partialUpdate(any(Integer.class), any(Map.class)))
+        given(patientService.partialUpdate(any(Integer.class), any(PatientPatchDto.class)))
                 .willReturn(patientDtoUpdated);
 
         //when
@@ -150,6 +150,27 @@ public class PatientControllerTest {
                 .andExpect(jsonPath("$.firstName", is(patientDtoUpdated.firstName())))
                 .andExpect(jsonPath("$.lastName", is(patientDtoUpdated.lastName())))
                 .andExpect(jsonPath("$.email", is(patientDtoUpdated.email())));
+        // el body se convierte una sola vez al patch tipado
+        verify(patientService).partialUpdate(eq(patientDto.id()), argThat(patch ->
+                patch.lastName().equals(Optional.of("Dominguez")) && patch.email().equals(Optional.of("doming@email.com"))));
+    }
+
+    @Test
+    @DisplayName("patch: un campo enviado como null llega vacio y uno ausente llega como null")
+    void testPatchPatientDistinguishesNullFromAbsent() throws Exception {
+        //given
+        given(patientService.partialUpdate(any(Integer.class), any(PatientPatchDto.class)))
+                .willReturn(patientDto);
+
+        //when
+        ResultActions result = mockMvc.perform(patch("/patch-patient/{id}", patientDto.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": null}"));
+
+        //then
+        result.andExpect(status().isOk());
+        verify(patientService).partialUpdate(eq(patientDto.id()), argThat(patch ->
+                patch.email() != null && patch.email().isEmpty() && patch.firstName() == null && patch.phoneNumber() == null));
     }
 
     @Test
@@ -1,9 +1,14 @@
 package com.SGTPI.SystemProject.repositories;
 
+import com.SGTPI.SystemProject.dto.AppointmentResponseDto;
+import com.SGTPI.SystemProject.dto.AppointmentStatusCountDto;
 import com.SGTPI.SystemProject.models.Appointment;
 import com.SGTPI.SystemProject.models.AppointmentStatus;
 import com.SGTPI.SystemProject.models.Patient;
 import com.SGTPI.SystemProject.models.Professional;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,6 +16,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +46,9 @@ public class AppointmentRepositoryTest {
 
     @Autowired
     private ProfessionalRepository professionalRepository;
+
+    @Autowired
+    private EntityManager entityManager;
     private Appointment appointment;
     private Patient patient;
     private Professional professional;
@@ -133,6 +145,37 @@ public class AppointmentRepositoryTest {
         assertThat(appointmentList.get(0)).isEqualTo(appointment);
     }
 
+    @Test
+    @DisplayName("test findByDate excluye los bordes del rango")
+    void testFindByDateHalfOpenRange(){
+        //given
+        Appointment lastOfDay = Appointment.builder()
+                .duration(30)
+                .date(LocalDateTime.of(2025, 9, 2, 23, 0))
+                .status(AppointmentStatus.CONFIRMADO)
+                .patient(patient)
+                .professional(professional)
+                .build();
+        appointmentRepository.save(lastOfDay);
+
+        Appointment nextDayMidnight = Appointment.builder()
+                .duration(30)
+                .date(LocalDateTime.of(2025, 9, 3, 0, 0))
+                .status(AppointmentStatus.BLOQUEADO)
+                .professional(professional)
+                .build();
+        appointmentRepository.save(nextDayMidnight);
+
+        //when
+        List<Appointment> appointmentList = appointmentRepository.findByDate(LocalDate.of(2025, 9, 2));
+        Optional<Appointment> exact = appointmentRepository.findByDateTimeNative(LocalDateTime.of(2025, 9, 3, 0, 0));
+
+        //then
+        assertThat(appointmentList).containsExactly(lastOfDay);
+        assertThat(exact).isPresent();
+        assertThat(exact.get().getId()).isEqualTo(nextDayMidnight.getId());
+    }
+
     @Test
     @DisplayName("test existsByDate")
     void testExistsByDate(){
@@ -254,6 +297,167 @@ public class AppointmentRepositoryTest {
         assertThat(patchedAppointment2).isNotNull();
     }
 
+    @Test
+    @DisplayName("test resumen por dia y estado en una consulta agregada")
+    void testCountByDayAndStatus(){
+        //given
+        appointmentRepository.saveAll(List.of(
+                Appointment.builder().duration(50).date(LocalDateTime.of(2025, 9, 2, 9, 0))
+                        .status(AppointmentStatus.CONFIRMADO).patient(patient).professional(professional).build(),
+                Appointment.builder().duration(50).date(LocalDateTime.of(2025, 9, 2, 18, 0))
+                        .status(AppointmentStatus.CONFIRMADO).patient(patient).professional(professional).build(),
+                Appointment.builder().duration(50).date(LocalDateTime.of(2025, 9, 2, 12, 0))
+                        .status(AppointmentStatus.BLOQUEADO).professional(professional).build(),
+                Appointment.builder().duration(50).date(LocalDateTime.of(2025, 9, 3, 8, 0))
+                        .status(AppointmentStatus.BLOQUEADO).professional(professional).build()));
+
+        //when
+        List<AppointmentStatusCountDto> rows = appointmentRepository.countByDayAndStatus(
+                LocalDateTime.of(2025, 9, 2, 0, 0), LocalDateTime.of(2025, 9, 3, 0, 0));
+
+        //then
+        assertThat(rows).hasSize(2);
+        AppointmentStatusCountDto confirmed = rows.stream()
+                .filter(row -> row.status() == AppointmentStatus.CONFIRMADO)
+                .findFirst().orElseThrow();
+        assertThat(confirmed.fecha()).isEqualTo(LocalDate.of(2025, 9, 2));
+        assertThat(confirmed.count()).isEqualTo(2L);
+        assertThat(confirmed.first()).isEqualTo(LocalDateTime.of(2025, 9, 2, 9, 0));
+        assertThat(confirmed.last()).isEqualTo(LocalDateTime.of(2025, 9, 2, 18, 0));
+    }
+
+    @Test
+    @DisplayName("test paginacion por cursor con filtros (Specification)")
+    void testKeysetPaginationWithSpecifications(){
+        //given
+        for (int hour = 8; hour < 14; hour++) {
+            appointmentRepository.save(Appointment.builder().duration(50)
+                    .date(LocalDateTime.of(2025, 9, 2, hour, 0))
+                    .status(hour % 2 == 0 ? AppointmentStatus.CONFIRMADO : AppointmentStatus.BLOQUEADO)
+                    .patient(hour % 2 == 0 ? patient : null)
+                    .professional(professional)
+                    .build());
+        }
+        Specification<Appointment> filters = Specification
+                .where(AppointmentSpecifications.statusIn(List.of(AppointmentStatus.CONFIRMADO)))
+                .and(AppointmentSpecifications.patientId(patient.getId()))
+                .and(AppointmentSpecifications.fetchAssociations());
+        Sort order = Sort.by("date").and(Sort.by("id"));
+
+        //when
+        List<Appointment> firstPage = appointmentRepository.findBy(filters,
+                q -> q.sortBy(order).limit(2).all());
+        Appointment last = firstPage.get(firstPage.size() - 1);
+        List<Appointment> secondPage = appointmentRepository.findBy(
+                filters.and(AppointmentSpecifications.after(last.getDate(), last.getId(), false)),
+                q -> q.sortBy(order).limit(2).all());
+
+        //then
+        assertThat(firstPage).extracting(Appointment::getDate)
+                .containsExactly(LocalDateTime.of(2025, 9, 2, 8, 0), LocalDateTime.of(2025, 9, 2, 10, 0));
+        assertThat(secondPage).extracting(Appointment::getDate)
+                .containsExactly(LocalDateTime.of(2025, 9, 2, 12, 0));
+    }
+
+    @Test
+    @DisplayName("test los listados de turnos ejecutan una sola sentencia SQL")
+    void testListQueriesRunOneStatement(){
+        //given
+        Patient otherPatient = patientRepository.save(Patient.builder()
+                .firstName("Ana")
+                .lastName("Lopez")
+                .email("alopez@hotmail.com")
+                .phoneNumber("1199887766")
+                .build());
+        for (int hour = 8; hour < 12; hour++) {
+            appointmentRepository.save(Appointment.builder().duration(50)
+                    .date(LocalDateTime.of(2025, 9, 2, hour, 0))
+                    .status(AppointmentStatus.CONFIRMADO)
+                    .patient(hour % 2 == 0 ? patient : otherPatient)
+                    .professional(professional)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        //when
+        statistics.clear();
+        List<AppointmentResponseDto> byDate = appointmentRepository.findResponsesBetween(
+                LocalDateTime.of(2025, 9, 2, 0, 0), LocalDateTime.of(2025, 9, 3, 0, 0));
+        long byDateStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<AppointmentResponseDto> byPatient = appointmentRepository.findPatientHistory(patient.getId(),
+                EnumSet.allOf(AppointmentStatus.class), LocalDateTime.of(9999, 12, 31, 0, 0), Integer.MAX_VALUE,
+                Limit.of(10));
+        long byPatientStatements = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        List<Appointment> page = appointmentRepository.findBy(
+                Specification.where(AppointmentSpecifications.dateFrom(LocalDateTime.of(2025, 9, 2, 0, 0)))
+                        .and(AppointmentSpecifications.fetchAssociations()),
+                q -> q.sortBy(Sort.by("date")).limit(10).all());
+        page.forEach(app -> app.getPatient().getFirstName());
+        long pageStatements = statistics.getPrepareStatementCount();
+
+        //then
+        assertThat(byDate).hasSize(4);
+        assertThat(byDate.get(1).patientName()).isEqualTo("Ana");
+        assertThat(byDate.get(0).hora()).isEqualTo("08:00");
+        assertThat(byPatient).hasSize(2);
+        assertThat(page).hasSize(4);
+        assertThat(byDateStatements).isEqualTo(1);
+        assertThat(byPatientStatements).isEqualTo(1);
+        assertThat(pageStatements).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("test historial de paciente: mas reciente primero, filtro por estado y cursor")
+    void testFindPatientHistory(){
+        //given
+        for (int day = 1; day <= 5; day++) {
+            appointmentRepository.save(Appointment.builder().duration(50)
+                    .date(LocalDateTime.of(2025, 9, day, 10, 0))
+                    .status(day == 3 ? AppointmentStatus.CANCELADO : AppointmentStatus.CONFIRMADO)
+                    .patient(patient)
+                    .professional(professional)
+                    .build());
+        }
+        List<AppointmentStatus> confirmed = List.of(AppointmentStatus.CONFIRMADO);
+
+        //when
+        List<AppointmentResponseDto> firstPage = appointmentRepository.findPatientHistory(patient.getId(),
+                confirmed, LocalDateTime.of(9999, 12, 31, 0, 0), Integer.MAX_VALUE, Limit.of(2));
+        AppointmentResponseDto last = firstPage.get(1);
+        List<AppointmentResponseDto> secondPage = appointmentRepository.findPatientHistory(patient.getId(),
+                confirmed, LocalDateTime.of(2025, 9, 4, 10, 0), last.id(), Limit.of(2));
+
+        //then
+        assertThat(firstPage).extracting(AppointmentResponseDto::fecha).containsExactly("2025-09-05", "2025-09-04");
+        assertThat(secondPage).extracting(AppointmentResponseDto::fecha).containsExactly("2025-09-02", "2025-09-01");
+    }
+
+    @Test
+    @DisplayName("test las notas de sesion no viajan en la agenda y se leen aparte por id")
+    void testFindSessionNotesById(){
+        //given
+        Appointment saved = appointmentRepository.save(new Appointment(50, LocalDateTime.of(2025, 9, 8, 10, 0),
+                AppointmentStatus.CONFIRMADO, patient, professional, "Primera sesion"));
+        entityManager.flush();
+        entityManager.clear();
 
+        //when
+        List<AppointmentResponseDto> agenda = appointmentRepository.findResponsesBetween(
+                LocalDateTime.of(2025, 9, 8, 0, 0), LocalDateTime.of(2025, 9, 9, 0, 0));
+        Optional<String> notes = appointmentRepository.findSessionNotesById(saved.getId());
 
+        //then
+        assertThat(agenda).hasSize(1);
+        assertThat(agenda.get(0).notes()).isNull();
+        assertThat(notes).contains("Primera sesion");
+        assertThat(appointmentRepository.findSessionNotesById(-1)).isEmpty();
+    }
 }
@@ -1,11 +1,14 @@
 package com.SGTPI.SystemProject.repositories;
 
 import com.SGTPI.SystemProject.SGTPIApplication;
+import com.SGTPI.SystemProject.dto.PatientDto;
 import com.SGTPI.SystemProject.models.Patient;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -116,4 +119,25 @@ public class PatientRepositoryTest {
         assertThat(observation.get()).isEqualTo("test");
     }
 
+    @Test
+    @DisplayName("test pagina de pacientes ordenada por apellido y nombre")
+    void testFindPage(){
+        //given (apellidos que quedan primeros en el orden alfabetico)
+        patientRepository.save(Patient.builder().firstName("Ana").lastName("Aab")
+                .email("aperez@mail.com").phoneNumber("987654321").build());
+        patientRepository.save(Patient.builder().firstName("Juan").lastName("Aaa")
+                .email("diaz@mail.com").phoneNumber("987123321").build());
+        patientRepository.save(Patient.builder().firstName("Beatriz").lastName("Aaa")
+                .email("bdiaz@mail.com").phoneNumber("987123322").build());
+
+        //when
+        Page<PatientDto> first = patientRepository.findPage(PageRequest.of(0, 2));
+        Page<PatientDto> second = patientRepository.findPage(PageRequest.of(1, 1));
+
+        //then
+        assertThat(first.getTotalElements()).isGreaterThanOrEqualTo(3);
+        assertThat(first.getContent()).extracting(PatientDto::firstName).containsExactly("Beatriz", "Juan");
+        assertThat(second.getContent()).extracting(PatientDto::firstName).containsExactly("Juan");
+    }
+
 }
@@ -0,0 +1,126 @@
+package com.SGTPI.SystemProject.repositories;
+
+import com.SGTPI.SystemProject.models.Appointment;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.models.Patient;
+import com.SGTPI.SystemProject.models.Professional;
+import com.SGTPI.SystemProject.models.Reminder;
+import com.SGTPI.SystemProject.models.sendMethod;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EntityScan(basePackages = "com.SGTPI.SystemProject.models")
+@Transactional
+public class ReminderRepositoryTest {
+    @Autowired
+    private ReminderRepository reminderRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ProfessionalRepository professionalRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Patient patient;
+    private Professional professional;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 9, 1, 10, 0);
+
+    @BeforeEach
+    void setup(){
+        patient = patientRepository.save(Patient.builder()
+                .firstName("Jorge")
+                .lastName("Diaz")
+                .email("jdiaz@hotmail.com")
+                .phoneNumber("122233344123")
+                .build());
+        professional = professionalRepository.save(Professional.builder()
+                .email("joaquinribarola45@gmail.com")
+                .password("1234")
+                .build());
+    }
+
+    @Test
+    @DisplayName("test claimDue solo reclama los recordatorios vencidos de turnos activos fuera de la ventana de 48hs")
+    void testClaimDue(){
+        //given
+        Reminder due = reminder(now.minusMinutes(5), appointment(now.plusDays(5), AppointmentStatus.CONFIRMADO));
+        reminder(now.plusDays(1), appointment(now.plusDays(6), AppointmentStatus.CONFIRMADO));
+        reminder(now.minusMinutes(5), appointment(now.plusDays(7), AppointmentStatus.CANCELADO));
+        reminder(now.minusMinutes(5), appointment(now.plusHours(24), AppointmentStatus.CONFIRMADO));
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        List<Integer> claimed = reminderRepository.claimDue(now, now.plusHours(48), 0, 10);
+        List<Integer> afterDue = reminderRepository.claimDue(now, now.plusHours(48), due.getId(), 10);
+        List<Reminder> loaded = reminderRepository.findWithAppointmentByIdIn(claimed);
+
+        //then
+        assertThat(claimed).containsExactly(due.getId());
+        assertThat(afterDue).isEmpty();
+        assertThat(loaded.get(0).getAppointment().getPatient().getEmail()).isEqualTo("jdiaz@hotmail.com");
+    }
+
+    @Test
+    @DisplayName("test markStale descarta los vencidos que ya no se van a enviar y deja los demas")
+    void testMarkStale(){
+        //given
+        Reminder due = reminder(now.minusMinutes(5), appointment(now.plusDays(5), AppointmentStatus.CONFIRMADO));
+        Reminder future = reminder(now.plusDays(1), appointment(now.plusDays(6), AppointmentStatus.CONFIRMADO));
+        Reminder cancelled = reminder(now.minusMinutes(5), appointment(now.plusDays(7), AppointmentStatus.CANCELADO));
+        Reminder tooLate = reminder(now.minusMinutes(5), appointment(now.plusHours(24), AppointmentStatus.CONFIRMADO));
+        entityManager.flush();
+
+        //when
+        int stale = reminderRepository.markStale(now, now.plusHours(48));
+        entityManager.clear();
+
+        //then
+        assertThat(stale).isEqualTo(2);
+        assertThat(reminderRepository.findById(cancelled.getId()).get().isSent()).isTrue();
+        assertThat(reminderRepository.findById(tooLate.getId()).get().isSent()).isTrue();
+        assertThat(reminderRepository.findById(due.getId()).get().isSent()).isFalse();
+        assertThat(reminderRepository.findById(future.getId()).get().isSent()).isFalse();
+    }
+
+    private Appointment appointment(LocalDateTime date, AppointmentStatus status) {
+        return appointmentRepository.save(Appointment.builder()
+                .duration(50)
+                .date(date)
+                .status(status)
+                .patient(patient)
+                .professional(professional)
+                .build());
+    }
+
+    private Reminder reminder(LocalDateTime sendTime, Appointment appointment) {
+        return reminderRepository.save(Reminder.builder()
+                .sendTime(sendTime)
+                .method(sendMethod.EMAIL)
+                .appointment(appointment)
+                .build());
+    }
+}
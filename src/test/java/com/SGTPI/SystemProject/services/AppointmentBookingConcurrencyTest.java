@@ -0,0 +1,153 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.AppointmentRequestDto;
+import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.exceptions.AppointmentBlockedException;
+import com.SGTPI.SystemProject.exceptions.AppointmentConflictException;
+import com.SGTPI.SystemProject.models.Patient;
+import com.SGTPI.SystemProject.models.Professional;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
+import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//dispara reservas en paralelo sobre las mismas franjas contra la BD de test:
+//debe haber exactamente un ganador por franja y el resto recibir un conflicto
+@SpringBootTest
+@ActiveProfiles("test")
+public class AppointmentBookingConcurrencyTest {
+
+    private static final int SLOTS = 10;
+    private static final int BOOKINGS_PER_SLOT = 30;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private ProfessionalRepository professionalRepository;
+    @Autowired
+    private ReminderRepository reminderRepository;
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    // evita enviar correos reales durante la prueba
+    @MockBean
+    private JavaMailSender mailSender;
+
+    private PatientDto patientDto;
+
+    @BeforeEach
+    void setup() {
+        reminderRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        slotOccupancyIndex.clear();
+
+        if (professionalRepository.findById(1) == null) {
+            professionalRepository.save(new Professional("joaquinribarola45@gmail.com", "1234"));
+        }
+
+        Patient patient = patientRepository.findByPhoneNumber("1122334455")
+                .orElseGet(() -> patientRepository.save(Patient.builder()
+                        .firstName("Jorge")
+                        .lastName("Diaz")
+                        .email("jdiaz@hotmail.com")
+                        .phoneNumber("1122334455")
+                        .build()));
+
+        patientDto = new PatientDto(patient.getId(), patient.getFirstName(), patient.getLastName(),
+                patient.getEmail(), patient.getPhoneNumber());
+    }
+
+    @Test
+    @DisplayName("reservas concurrentes: un solo ganador por franja")
+    void testConcurrentBookingsHaveOneWinnerPerSlot() throws Exception {
+        //given
+        LocalDate day = LocalDate.now().plusDays(30);
+        List<LocalDateTime> slots = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(day.atTime(8 + i, 0));
+        }
+
+        Map<LocalDateTime, AtomicInteger> winners = new ConcurrentHashMap<>();
+        AtomicInteger conflicts = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        Queue<Long> latenciesNanos = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(SLOTS * BOOKINGS_PER_SLOT);
+
+        //when
+        for (int i = 0; i < BOOKINGS_PER_SLOT; i++) {
+            for (LocalDateTime slot : slots) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        long begin = System.nanoTime();
+                        try {
+                            appointmentService.createAppointment(new AppointmentRequestDto(
+                                    50, slot.toLocalDate(), slot.toLocalTime(), patientDto, null));
+                            winners.computeIfAbsent(slot, s -> new AtomicInteger()).incrementAndGet();
+                        } catch (AppointmentConflictException | AppointmentBlockedException e) {
+                            conflicts.incrementAndGet();
+                        } finally {
+                            latenciesNanos.add(System.nanoTime() - begin);
+                        }
+                    } catch (Throwable t) {
+                        unexpected.add(t);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+        }
+        start.countDown();
+        assertThat(done.await(2, TimeUnit.MINUTES)).isTrue();
+        executor.shutdown();
+
+        //then
+        assertThat(unexpected).isEmpty();
+        for (LocalDateTime slot : slots) {
+            assertThat(winners.get(slot)).as("ganadores en " + slot).isNotNull();
+            assertThat(winners.get(slot).get()).as("ganadores en " + slot).isEqualTo(1);
+        }
+        assertThat(conflicts.get()).isEqualTo(SLOTS * (BOOKINGS_PER_SLOT - 1));
+        assertThat(appointmentRepository.findByDate(day)).hasSize(SLOTS);
+
+        List<Long> sorted = new ArrayList<>(latenciesNanos);
+        Collections.sort(sorted);
+        long p50 = sorted.get((int) Math.ceil(sorted.size() * 0.50) - 1);
+        long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        System.out.printf("Reservas concurrentes: %d intentos, %d conflictos, p50=%.1f ms, p99=%.1f ms%n",
+                sorted.size(), conflicts.get(), p50 / 1_000_000.0, p99 / 1_000_000.0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.AppointmentExportRowDto;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentExportServiceTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AppointmentExportService exportService;
+
+    private final AtomicBoolean streamClosed = new AtomicBoolean();
+
+    @BeforeEach
+    void setup() {
+        exportService = new AppointmentExportService(appointmentRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()), transactionManager);
+        given(transactionManager.getTransaction(any())).willReturn(new SimpleTransactionStatus());
+        given(appointmentRepository.streamForExport(any(), any())).willReturn(Stream.of(
+                new AppointmentExportRowDto(1, LocalDateTime.of(2025, 9, 2, 10, 0), AppointmentStatus.CONFIRMADO,
+                        50, false, 7, "Jorge", "Diaz, \"h\"", "jdiaz@hotmail.com", "1122334455"),
+                new AppointmentExportRowDto(2, LocalDateTime.of(2025, 9, 2, 11, 0), AppointmentStatus.BLOQUEADO,
+                        50, false, null, null, null, null, null))
+                .onClose(() -> streamClosed.set(true)));
+    }
+
+    @Test
+    @DisplayName("exportar CSV: cabecera, una linea por turno, campos escapados y stream cerrado")
+    void testExportCsv() {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        exportService.export(AppointmentExportService.Format.CSV, null, null, out);
+
+        //then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("id,fecha_hora,estado");
+        assertThat(lines[1]).isEqualTo("1,2025-09-02T10:00:00,CONFIRMADO,50,false,7,Jorge,\"Diaz, \"\"h\"\"\",jdiaz@hotmail.com,1122334455");
+        assertThat(lines[2]).isEqualTo("2,2025-09-02T11:00:00,BLOQUEADO,50,false,,,,,");
+        assertThat(streamClosed).isTrue();
+    }
+
+    @Test
+    @DisplayName("exportar NDJSON: un objeto JSON por linea")
+    void testExportNdjson() {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        exportService.export(AppointmentExportService.Format.NDJSON, null, null, out);
+
+        //then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":1,").contains("\"fechaHora\":\"2025-09-02T10:00:00\"");
+        assertThat(lines[1]).contains("\"state\":\"BLOQUEADO\"");
+    }
+}
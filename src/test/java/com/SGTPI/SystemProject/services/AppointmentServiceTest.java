@@ -1,7 +1,13 @@
 package com.SGTPI.SystemProject.services;
 
+import com.SGTPI.SystemProject.dto.AppointmentPatchDto;
+import com.SGTPI.SystemProject.dto.AppointmentNotificationDto;
+import com.SGTPI.SystemProject.dto.AppointmentRangeRequestDto;
+import com.SGTPI.SystemProject.dto.AppointmentRangeResultDto;
 import com.SGTPI.SystemProject.dto.AppointmentRequestDto;
 import com.SGTPI.SystemProject.dto.AppointmentResponseDto;
+import com.SGTPI.SystemProject.dto.AppointmentSeriesRequestDto;
+import com.SGTPI.SystemProject.dto.AppointmentSlotDto;
 import com.SGTPI.SystemProject.dto.PatientDto;
 import com.SGTPI.SystemProject.exceptions.AppointmentConflictException;
 import com.SGTPI.SystemProject.mappers.AppointmentMapper;
@@ -11,22 +17,39 @@ import com.SGTPI.SystemProject.models.Patient;
 import com.SGTPI.SystemProject.models.Professional;
 import com.SGTPI.SystemProject.repositories.AppointmentRepository;
 import com.SGTPI.SystemProject.repositories.PatientRepository;
-import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
 import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import com.SGTPI.SystemProject.utils.EmailBatchEvent;
+import com.SGTPI.SystemProject.utils.EmailEvent;
+import com.SGTPI.SystemProject.utils.WorkingHours;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
@@ -46,9 +69,17 @@ public class AppointmentServiceTest {
     @Mock
     private ReminderRepository reminderRepository;
     @Mock
-    private ProfessionalRepository professionalRepository;
+    private ProfessionalCache professionalCache;
     @Mock
     private AppointmentMapper appointmentMapper;
+    @Mock
+    private SlotOccupancyIndex slotOccupancyIndex;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private PatientCache patientCache;
+    @Mock
+    private ReminderTimer reminderTimer;
 
     private Patient patient;
     private Professional professional;
@@ -124,12 +155,15 @@ public class AppointmentServiceTest {
         // El mapper convierte el DTO a la entidad
         given(appointmentMapper.requestToAppointment(requestDto)).willReturn(appointment);
         // No hay turnos confirmados, bloqueados o cancelados para la fecha
-        given(appointmentRepository.findByDateAndStatus(any(), any())).willReturn(Optional.empty());
+        given(slotOccupancyIndex.find(appointment.getDate())).willReturn(Optional.empty());
         // El paciente y el profesional existen en la base de datos
-        given(patientRepository.findById(patient.getId())).willReturn(Optional.of(patient));
-        given(professionalRepository.findById(professional.getId())).willReturn(professional);
+        given(patientCache.findById(patient.getId())).willReturn(Optional.of(patient));
+        given(professionalCache.reference()).willReturn(professional);
+        // La reserva se ejecuta dentro de la transaccion del template
+        given(transactionTemplate.execute(any())).willAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
         // El repositorio guarda el turno y devuelve la entidad guardada
-        given(appointmentRepository.save(any(Appointment.class))).willReturn(appointment);
+        given(appointmentRepository.saveAndFlush(any(Appointment.class))).willReturn(appointment);
         // El mapper convierte la entidad guardada al DTO de respuesta
         given(appointmentMapper.entityToResponse(appointment)).willReturn(responseDto);
 
@@ -143,13 +177,14 @@ public class AppointmentServiceTest {
         assertThat(result.patientEmail()).isEqualTo(responseDto.patientEmail());
 
         // Verificamos las interacciones con los mocks
-        verify(appointmentMapper, times(1)).requestToAppointment(requestDto);
-        verify(appointmentRepository, times(1)).findByDateAndStatus(appointment.getDate(), AppointmentStatus.CONFIRMADO);
-        verify(appointmentRepository, times(1)).findByDateAndStatus(appointment.getDate(), AppointmentStatus.BLOQUEADO);
-        verify(appointmentRepository, times(1)).findByDateAndStatus(appointment.getDate(), AppointmentStatus.CANCELADO);
-        verify(patientRepository, times(1)).findById(patient.getId());
-        verify(professionalRepository, times(1)).findById(professional.getId());
-        verify(appointmentRepository, times(1)).save(any(Appointment.class));
+        // una vez para validar la franja y otra para el intento de reserva
+        verify(appointmentMapper, times(2)).requestToAppointment(requestDto);
+        verify(slotOccupancyIndex, times(1)).find(appointment.getDate());
+        verify(slotOccupancyIndex, times(1)).recordAfterCommit(appointment);
+        verify(appointmentRepository, never()).findByDateAndStatus(any(), any());
+        verify(patientCache, times(1)).findById(patient.getId());
+        verify(professionalCache, times(1)).reference();
+        verify(appointmentRepository, times(1)).saveAndFlush(any(Appointment.class));
         verify(appointmentMapper, times(1)).entityToResponse(appointment);
     }
 
@@ -159,8 +194,8 @@ public class AppointmentServiceTest {
         // Given (Dado que)
         given(appointmentMapper.requestToAppointment(requestDto)).willReturn(appointment);
         // Simulamos que ya existe un turno confirmado
-        given(appointmentRepository.findByDateAndStatus(any(), eq(AppointmentStatus.CONFIRMADO)))
-                .willReturn(Optional.of(appointment));
+        given(slotOccupancyIndex.find(appointment.getDate()))
+                .willReturn(Optional.of(new SlotOccupancyIndex.Slot(2, AppointmentStatus.CONFIRMADO)));
 
         // When & Then (Cuando & Entonces)
         // Verificamos que se lance la excepción correcta
@@ -169,8 +204,243 @@ public class AppointmentServiceTest {
         });
 
         // Verificamos que el método save nunca se haya llamado
-        verify(appointmentRepository, never()).save(any(Appointment.class));
+        verify(appointmentRepository, never()).saveAndFlush(any(Appointment.class));
+        verify(transactionTemplate, never()).execute(any());
     }
 
 
+    @Test
+    @DisplayName("Traducir la violacion de la restriccion unique en AppointmentConflictException")
+    void testCreateAppointment_translatesUniqueViolation() {
+        // Given (Dado que) otro usuario reservo la franja entre la validacion y el guardado
+        given(appointmentMapper.requestToAppointment(requestDto)).willReturn(appointment);
+        given(slotOccupancyIndex.find(appointment.getDate())).willReturn(Optional.empty());
+        given(transactionTemplate.execute(any()))
+                .willThrow(new DataIntegrityViolationException("Duplicate entry for key 'fecha_hora'"));
+
+        // When & Then (Cuando & Entonces)
+        assertThrows(AppointmentConflictException.class, () -> appointmentService.createAppointment(requestDto));
+
+        // El dia se descarta del indice para releerlo y no se envia el correo de confirmacion
+        verify(slotOccupancyIndex, times(1)).evict(appointment.getDate().toLocalDate());
+        verify(appointmentMapper, never()).entityToResponse(any());
+    }
+
+    @Test
+    @DisplayName("Reintentar la reserva tras un timeout de bloqueo con una entidad nueva")
+    void testCreateAppointment_retriesLockTimeoutWithFreshEntity() {
+        // Given (Dado que) el primer intento guarda el turno pero la transaccion se revierte por un timeout de bloqueo
+        ReflectionTestUtils.setField(appointmentService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        given(appointmentMapper.requestToAppointment(requestDto)).willAnswer(invocation -> Appointment.builder()
+                .duration(appointment.getDuration())
+                .date(appointment.getDate())
+                .status(AppointmentStatus.CONFIRMADO)
+                .patient(patient)
+                .build());
+        given(slotOccupancyIndex.find(appointment.getDate())).willReturn(Optional.empty());
+        given(patientCache.findById(patient.getId())).willReturn(Optional.of(patient));
+        given(professionalCache.reference()).willReturn(professional);
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> {
+                    invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+                    throw new CannotAcquireLockException("Lock wait timeout exceeded");
+                })
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        List<Appointment> saved = new ArrayList<>();
+        List<Integer> idsOnSave = new ArrayList<>();
+        given(appointmentRepository.saveAndFlush(any(Appointment.class))).willAnswer(invocation -> {
+            Appointment app = invocation.getArgument(0);
+            saved.add(app);
+            idsOnSave.add(app.getId());
+            // la BD asigna id y version aunque luego la transaccion se revierta
+            if (app.getId() == null) {
+                app.setId(7);
+                app.setVersion(0L);
+            }
+            return app;
+        });
+        given(appointmentMapper.entityToResponse(any())).willReturn(responseDto);
+
+        // When (Cuando)
+        AppointmentResponseDto result = appointmentService.createAppointment(requestDto);
+
+        // Then (Entonces) el segundo intento guarda una entidad nueva, sin el id ni la version del intento revertido
+        assertThat(result).isEqualTo(responseDto);
+        assertThat(saved).hasSize(2);
+        assertThat(saved.get(1)).isNotSameAs(saved.get(0));
+        assertThat(idsOnSave).containsExactly(null, null);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    @DisplayName("Una serie con una fecha ocupada no guarda ninguna ocurrencia")
+    void testCreateAppointmentSeries_conflictSavesNothing() {
+        // Given (Dado que) la tercera semana ya tiene un turno confirmado
+        LocalDateTime first = LocalDateTime.now().plusDays(7).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        AppointmentSeriesRequestDto seriesDto = new AppointmentSeriesRequestDto(
+                30, first.toLocalDate(), first.toLocalTime(), patientDto, null, 1, 4, null);
+        Appointment occupied = Appointment.builder()
+                .id(9)
+                .date(first.plusWeeks(2))
+                .status(AppointmentStatus.CONFIRMADO)
+                .build();
+
+        given(appointmentMapper.requestToAppointment(any())).willReturn(appointment);
+        given(transactionTemplate.execute(any())).willAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        given(patientCache.findById(patient.getId())).willReturn(Optional.of(patient));
+        given(appointmentRepository.findByDateIn(any())).willReturn(List.of(occupied));
+
+        // When & Then (Cuando & Entonces)
+        assertThrows(AppointmentConflictException.class, () -> appointmentService.createAppointmentSeries(seriesDto));
+
+        // Todas las ocurrencias se validaron con una sola consulta y no se guardo nada
+        verify(appointmentRepository, times(1)).findByDateIn(any());
+        verify(appointmentRepository, never()).saveAll(any());
+        verify(reminderRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Bloquear un rango actualiza en bloque, crea las franjas faltantes y respeta los confirmados")
+    void testApplyRangeAction_blockKeepsConfirmed() {
+        // Given (Dado que) el rango 08:00-12:00 ya tiene un turno confirmado a las 10:00 y uno bloqueado a las 09:00
+        LocalDateTime from = LocalDate.now().plusDays(7).with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY)).atTime(8, 0);
+        LocalDateTime to = from.withHour(12);
+        given(appointmentRepository.findSlotsBetween(from, to)).willReturn(List.of(
+                new AppointmentSlotDto(3, from.withHour(9), AppointmentStatus.BLOQUEADO),
+                new AppointmentSlotDto(4, from.withHour(10), AppointmentStatus.CONFIRMADO)));
+        given(appointmentRepository.updateStatusBetween(eq(from), eq(to), any(), eq(AppointmentStatus.BLOQUEADO)))
+                .willReturn(0);
+        given(professionalCache.workingHours()).willReturn(WorkingHours.DEFAULT);
+        given(professionalCache.reference()).willReturn(professional);
+
+        // When (Cuando)
+        AppointmentRangeResultDto result = appointmentService.applyRangeAction(
+                new AppointmentRangeRequestDto(from, to, true, false));
+
+        // Then (Entonces) los confirmados no se tocan y solo se insertan las franjas de las 08:00 y 11:00
+        ArgumentCaptor<Collection<AppointmentStatus>> statuses = ArgumentCaptor.forClass(Collection.class);
+        verify(appointmentRepository).updateStatusBetween(eq(from), eq(to), statuses.capture(), eq(AppointmentStatus.BLOQUEADO));
+        assertThat(statuses.getValue()).doesNotContain(AppointmentStatus.CONFIRMADO);
+
+        ArgumentCaptor<List<Appointment>> created = ArgumentCaptor.forClass(List.class);
+        verify(appointmentRepository).saveAll(created.capture());
+        assertThat(created.getValue()).extracting(Appointment::getDate)
+                .containsExactly(from, from.withHour(11));
+        assertThat(created.getValue()).allMatch(app -> app.getStatus() == AppointmentStatus.BLOQUEADO);
+
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.skippedConfirmed()).isEqualTo(1);
+        verify(appointmentRepository, never()).findNotificationsBetween(any(), any(), any());
+        verify(slotOccupancyIndex).evictAfterCommit(from, to);
+    }
+
+    @Test
+    @DisplayName("Bloquear un rango usa la grilla del profesional y saltea los dias sin atencion")
+    void testApplyRangeAction_usesProfessionalWorkingHours() {
+        // Given (Dado que) el profesional atiende de 09:00 a 11:00 en franjas de 30 minutos, de lunes a viernes
+        LocalDateTime from = LocalDate.now().plusDays(7).with(TemporalAdjusters.next(DayOfWeek.FRIDAY)).atTime(8, 0);
+        LocalDateTime to = from.plusDays(3).withHour(12);
+        LocalDateTime monday = from.plusDays(3);
+        given(appointmentRepository.findSlotsBetween(from, to)).willReturn(List.of());
+        given(professionalCache.workingHours()).willReturn(new WorkingHours(
+                List.of(new WorkingHours.Interval(LocalTime.of(9, 0), LocalTime.of(11, 0))), 30, WorkingHours.WEEKDAYS));
+        given(professionalCache.reference()).willReturn(professional);
+
+        // When (Cuando)
+        AppointmentRangeResultDto result = appointmentService.applyRangeAction(
+                new AppointmentRangeRequestDto(from, to, true, false));
+
+        // Then (Entonces) solo se crean las franjas del viernes y del lunes, con la duracion de la grilla
+        ArgumentCaptor<List<Appointment>> created = ArgumentCaptor.forClass(List.class);
+        verify(appointmentRepository).saveAll(created.capture());
+        assertThat(created.getValue()).extracting(Appointment::getDate).containsExactly(
+                from.withHour(9), from.withHour(9).withMinute(30), from.withHour(10), from.withHour(10).withMinute(30),
+                monday.withHour(9), monday.withHour(9).withMinute(30), monday.withHour(10), monday.withHour(10).withMinute(30));
+        assertThat(created.getValue()).allMatch(app -> app.getDuration() == 30);
+        assertThat(result.created()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Cancelar los confirmados de un rango no falla si un paciente no tiene correo")
+    void testApplyRangeAction_cancelSkipsPatientsWithoutEmail() {
+        // Given (Dado que) el rango tiene dos turnos confirmados y uno de los pacientes no tiene correo
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(appointmentService, "eventPublisher", eventPublisher);
+        LocalDateTime from = LocalDate.now().plusDays(7).with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY)).atTime(10, 0);
+        LocalDateTime to = from.withHour(12);
+        given(appointmentRepository.findSlotsBetween(from, to)).willReturn(List.of(
+                new AppointmentSlotDto(4, from, AppointmentStatus.CONFIRMADO),
+                new AppointmentSlotDto(5, from.withHour(11), AppointmentStatus.CONFIRMADO)));
+        given(appointmentRepository.findNotificationsBetween(from, to, AppointmentStatus.CONFIRMADO)).willReturn(List.of(
+                new AppointmentNotificationDto(4, from, "jdiaz@hotmail.com", "Jorge"),
+                new AppointmentNotificationDto(5, from.withHour(11), null, "Ana")));
+        given(professionalCache.workingHours()).willReturn(WorkingHours.DEFAULT);
+        given(professionalCache.reference()).willReturn(professional);
+
+        // When (Cuando)
+        AppointmentRangeResultDto result = appointmentService.applyRangeAction(
+                new AppointmentRangeRequestDto(from, to, true, true));
+
+        // Then (Entonces) se cancelan los dos, pero solo se avisa al paciente con correo
+        assertThat(result.cancelled()).isEqualTo(2);
+        verify(reminderRepository).markSentByAppointmentIds(List.of(4, 5));
+        ArgumentCaptor<EmailBatchEvent> batch = ArgumentCaptor.forClass(EmailBatchEvent.class);
+        verify(eventPublisher).publishEvent(batch.capture());
+        assertThat(batch.getValue().getEmails()).extracting(EmailEvent::getTo).containsExactly("jdiaz@hotmail.com");
+    }
+
+    @Test
+    @DisplayName("Desbloquear un rango no permite cancelar los turnos confirmados")
+    void testApplyRangeAction_unblockRejectsCancelConfirmed() {
+        // Given (Dado que) se pide desbloquear y a la vez cancelar los confirmados
+        LocalDateTime from = LocalDateTime.now().plusDays(7).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        AppointmentRangeRequestDto dto = new AppointmentRangeRequestDto(from, from.withHour(12), false, true);
+
+        // When & Then (Cuando & Entonces)
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.applyRangeAction(dto));
+        verifyNoInteractions(appointmentRepository, reminderRepository);
+    }
+
+    @Test
+    @DisplayName("patch: sin cambio de fecha/hora no valida la franja ni busca el paciente")
+    void testPatchAppointment_withoutDateChange_skipsConflictCheck() {
+        //given
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(appointmentService, "eventPublisher", eventPublisher);
+        AppointmentPatchDto patch = new AppointmentPatchDto(null, Optional.of(appointment.getDate().toLocalDate()),
+                null, null, Optional.of("Notas nuevas"), Optional.of(patientDto));
+        given(appointmentRepository.findById(appointment.getId())).willReturn(Optional.of(appointment));
+        given(appointmentRepository.saveAndFlush(appointment)).willReturn(appointment);
+        given(appointmentMapper.entityToResponse(appointment)).willReturn(responseDto);
+
+        //when
+        AppointmentResponseDto result = appointmentService.patchAppointment(appointment.getId(), patch);
+
+        //then
+        assertThat(result).isEqualTo(responseDto);
+        assertThat(appointment.getSessionNotes()).isEqualTo("Notas nuevas");
+        assertThat(appointment.getDuration()).isEqualTo(30);
+        verify(slotOccupancyIndex, never()).findConflict(any(), any());
+        verify(patientCache, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("patch: mover el turno a una franja ocupada lanza AppointmentConflictException")
+    void testPatchAppointment_withOccupiedSlot_throwsConflict() {
+        //given
+        LocalDateTime newDate = appointment.getDate().plusHours(1);
+        AppointmentPatchDto patch = new AppointmentPatchDto(null, null, Optional.of(newDate.toLocalTime()),
+                null, null, null);
+        given(appointmentRepository.findById(appointment.getId())).willReturn(Optional.of(appointment));
+        given(slotOccupancyIndex.findConflict(newDate, appointment.getId()))
+                .willReturn(Optional.of(new SlotOccupancyIndex.Slot(2, AppointmentStatus.CONFIRMADO)));
+
+        //when
+        assertThrows(AppointmentConflictException.class,
+                () -> appointmentService.patchAppointment(appointment.getId(), patch));
+
+        //then
+        verify(appointmentRepository, never()).saveAndFlush(any());
+    }
 }
@@ -0,0 +1,92 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.AppointmentSlotDto;
+import com.SGTPI.SystemProject.dto.FreeSlotDto;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.models.Professional;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import com.SGTPI.SystemProject.utils.WorkingHours;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AvailabilityServiceTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+    @Mock
+    private ProfessionalCache professionalCache;
+    @InjectMocks
+    private AvailabilityService availabilityService;
+
+    // lunes
+    private final LocalDate monday = LocalDate.of(2030, 1, 7);
+
+    @BeforeEach
+    void setup() {
+        // atiende de 09:00 a 12:00 y de 14:00 a 16:00
+        Professional professional = Professional.builder()
+                .id(1)
+                .email("lolo@mail.com")
+                .password("1234")
+                .morningOpeningHours("09:00")
+                .morningClosingHours("12:00")
+                .afternoonOpeningHours("14:00:00")
+                .afternoonClosingHours("16:00:00")
+                .build();
+        given(professionalCache.workingHours()).willReturn(WorkingHours.of(professional));
+    }
+
+    @Test
+    @DisplayName("franjas libres: grilla de atencion menos turnos ocupados, bloqueados y cancelados")
+    void testFindFreeSlots() {
+        //given
+        LocalDateTime from = monday.atStartOfDay();
+        LocalDateTime to = monday.plusDays(1).atStartOfDay();
+        given(appointmentRepository.findSlotsBetween(from, to)).willReturn(List.of(
+                new AppointmentSlotDto(1, monday.atTime(9, 0), AppointmentStatus.CONFIRMADO),
+                new AppointmentSlotDto(2, monday.atTime(10, 0), AppointmentStatus.DISPONIBLE),
+                new AppointmentSlotDto(3, monday.atTime(14, 0), AppointmentStatus.BLOQUEADO),
+                new AppointmentSlotDto(4, monday.atTime(15, 0), AppointmentStatus.CANCELADO)));
+
+        //when
+        List<FreeSlotDto> free = availabilityService.findFreeSlots(from, to);
+
+        //then
+        assertThat(free).extracting(FreeSlotDto::hora)
+                .containsExactly(LocalTime.of(10, 0), LocalTime.of(11, 0));
+    }
+
+    @Test
+    @DisplayName("proximas franjas libres: saltea el fin de semana y consulta por ventanas")
+    void testFindNextFreeSlots() {
+        //given
+        LocalDateTime saturday = monday.minusDays(2).atTime(8, 0);
+        given(appointmentRepository.findSlotsBetween(any(), any())).willReturn(List.of());
+
+        //when
+        List<FreeSlotDto> free = availabilityService.findNextFreeSlots(saturday, 5);
+
+        //then
+        assertThat(free).hasSize(5);
+        assertThat(free).allMatch(slot -> slot.fecha().equals(monday));
+        assertThat(free.get(0).hora()).isEqualTo(LocalTime.of(9, 0));
+        assertThat(free.get(4).hora()).isEqualTo(LocalTime.of(15, 0));
+        verify(appointmentRepository, times(1)).findSlotsBetween(any(), any());
+    }
+}
@@ -0,0 +1,153 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.EmailLane;
+import com.SGTPI.SystemProject.models.EmailOutbox;
+import com.SGTPI.SystemProject.models.EmailOutboxStatus;
+import com.SGTPI.SystemProject.repositories.EmailOutboxRepository;
+import com.SGTPI.SystemProject.utils.EmailBatchEvent;
+import com.SGTPI.SystemProject.utils.EmailEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailOutboxServiceTest {
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private Executor emailExecutor;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmailOutboxService outboxService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new EmailOutboxService(outboxRepository, emailService, transactionTemplate, emailExecutor, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("guarda los correos del evento como pendientes en su carril y pide un envio por carril sin esperarlo")
+    @SuppressWarnings("unchecked")
+    void testEnqueueBatch() {
+        //when
+        outboxService.enqueueBatch(new EmailBatchEvent(this, List.of(
+                new EmailEvent(this, "ana@mail.com", "Cancelacion de cita", "<p>a</p>"),
+                new EmailEvent(this, "luis@mail.com", "Cancelacion de cita", "<p>b</p>"),
+                new EmailEvent(this, "pedro@mail.com", "Recordatorio de Turno Próximo", "<p>c</p>", EmailLane.MASIVO))));
+
+        //then
+        ArgumentCaptor<List<EmailOutbox>> saved = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(EmailOutbox::getLane)
+                .containsExactly(EmailLane.TRANSACCIONAL, EmailLane.TRANSACCIONAL, EmailLane.MASIVO);
+        assertThat(saved.getValue()).allMatch(email -> email.getStatus() == EmailOutboxStatus.PENDIENTE);
+        verify(emailExecutor, times(2)).execute(any(Runnable.class));
+        verifyNoInteractions(emailService);
+        assertThat(meterRegistry.counter("email.outbox.enqueued", "lane", "TRANSACCIONAL").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("email.outbox.enqueued", "lane", "MASIVO").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("con el pool de correo lleno no falla quien publica y el siguiente correo vuelve a pedir el envio")
+    void testEnqueueWithFullExecutor() {
+        //given
+        willThrow(new TaskRejectedException("Pool de correo lleno")).given(emailExecutor).execute(any(Runnable.class));
+
+        //when
+        outboxService.enqueue(new EmailEvent(this, "ana@mail.com", "Confirmación de Cita", "<p>a</p>"));
+        outboxService.enqueue(new EmailEvent(this, "luis@mail.com", "Confirmación de Cita", "<p>b</p>"));
+
+        //then
+        verify(outboxRepository, times(2)).saveAll(any());
+        verify(emailExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("marca los enviados y reprograma o descarta los que fallan segun sus intentos")
+    void testDispatch() {
+        //given
+        EmailOutbox ok = email(1, "ana@mail.com", 0);
+        EmailOutbox retry = email(2, "luis@mail.com", 1);
+        EmailOutbox dead = email(3, "pedro@mail.com", EmailOutboxService.MAX_ATTEMPTS - 1);
+        given(transactionTemplate.execute(any())).willAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        given(outboxRepository.claimPending(eq("TRANSACCIONAL"), any(), eq(EmailOutboxService.BATCH_SIZE))).willReturn(List.of(1, 2, 3));
+        given(outboxRepository.findByIdIn(List.of(1, 2, 3))).willReturn(List.of(ok, retry, dead));
+        given(emailService.sendAll(EmailLane.TRANSACCIONAL, List.of(ok, retry, dead))).willReturn(Map.of(
+                2, new MailSendException("timeout"),
+                3, new MessagingException("direccion invalida")));
+
+        //when
+        LocalDateTime before = LocalDateTime.now();
+        outboxService.dispatch(EmailLane.TRANSACCIONAL);
+
+        //then
+        assertThat(ok.getStatus()).isEqualTo(EmailOutboxStatus.ENVIADO);
+        assertThat(ok.getAttempts()).isEqualTo(1);
+        assertThat(retry.getStatus()).isEqualTo(EmailOutboxStatus.PENDIENTE);
+        assertThat(retry.getAttempts()).isEqualTo(2);
+        assertThat(retry.getNextAttemptAt()).isAfter(before.plusSeconds(90));
+        assertThat(retry.getLastError()).isEqualTo("timeout");
+        assertThat(dead.getStatus()).isEqualTo(EmailOutboxStatus.FALLIDO);
+        assertThat(meterRegistry.counter("email.outbox.sent", "lane", "TRANSACCIONAL").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("email.outbox.dead.lettered", "lane", "TRANSACCIONAL").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("email.outbox.queue.latency", "lane", "TRANSACCIONAL").count()).isEqualTo(1);
+        // un bloque incompleto es el ultimo: no se reclama otro
+        verify(outboxRepository, times(1)).claimPending(eq("TRANSACCIONAL"), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("el ciclo programado solo pide el vaciado de cada carril al pool de correo, sin enviar en su hilo")
+    void testScheduledDispatchHandsLanesToExecutor() {
+        //when
+        outboxService.dispatch();
+
+        //then
+        verify(emailExecutor, times(EmailLane.values().length)).execute(any(Runnable.class));
+        verifyNoInteractions(outboxRepository, emailService, transactionTemplate);
+    }
+
+    private EmailOutbox email(int id, String recipient, int attempts) {
+        return EmailOutbox.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Confirmación de Cita")
+                .body("<p>turno</p>")
+                .status(EmailOutboxStatus.PENDIENTE)
+                .attempts(attempts)
+                .lane(EmailLane.TRANSACCIONAL)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now().minusSeconds(2))
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.EmailLane;
+import com.SGTPI.SystemProject.models.EmailOutbox;
+import com.SGTPI.SystemProject.models.EmailOutboxStatus;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailServiceTest {
+
+    @Mock
+    private JavaMailSender mailSender;
+    @InjectMocks
+    private EmailService emailService;
+
+    @Test
+    @DisplayName("envia el lote en una sola llamada y devuelve solo los correos rechazados")
+    void testSendAll() {
+        //given
+        Session session = Session.getInstance(new Properties());
+        List<MimeMessage> created = new ArrayList<>();
+        given(mailSender.createMimeMessage()).willAnswer(invocation -> {
+            MimeMessage message = new MimeMessage(session);
+            created.add(message);
+            return message;
+        });
+        willAnswer(invocation -> {
+            throw new MailSendException("rechazado", null,
+                    Map.<Object, Exception>of(created.get(1), new MailSendException("buzon inexistente")));
+        }).given(mailSender).send(any(MimeMessage[].class));
+
+        //when
+        Map<Integer, Exception> failures = emailService.sendAll(EmailLane.TRANSACCIONAL, List.of(
+                email(1, "ana@mail.com"), email(2, "luis@mail.com"), email(3, "pedro@mail.com")));
+
+        //then
+        ArgumentCaptor<MimeMessage[]> sent = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, times(1)).send(sent.capture());
+        assertThat(sent.getValue()).hasSize(3);
+        assertThat(failures).containsOnlyKeys(2);
+        assertThat(failures.get(2)).hasMessage("buzon inexistente");
+    }
+
+    private EmailOutbox email(int id, String recipient) {
+        return EmailOutbox.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Recordatorio de Turno Próximo")
+                .body("<p>turno</p>")
+                .status(EmailOutboxStatus.PENDIENTE)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.Patient;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PatientCacheTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private PatientCache patientCache;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setup() {
+        patientCache = new PatientCache(patientRepository, new SimpleMeterRegistry(), 100, 30);
+        patient = Patient.builder()
+                .id(1)
+                .firstName("Jorge")
+                .lastName("Diaz")
+                .email("jdiaz@hotmail.com")
+                .phoneNumber("1122334455")
+                .build();
+    }
+
+    @Test
+    @DisplayName("la segunda busqueda por telefono o id se responde desde la cache")
+    void testLookupsHitCache() {
+        //given
+        given(patientRepository.findByPhoneNumber(patient.getPhoneNumber())).willReturn(Optional.of(patient));
+
+        //when
+        Optional<Patient> first = patientCache.findByPhoneNumber(patient.getPhoneNumber());
+        Optional<Patient> second = patientCache.findByPhoneNumber(patient.getPhoneNumber());
+        Optional<Patient> byId = patientCache.findById(patient.getId());
+
+        //then
+        assertThat(first).isPresent();
+        assertThat(second.get().getFirstName()).isEqualTo("Jorge");
+        assertThat(byId.get().getPhoneNumber()).isEqualTo(patient.getPhoneNumber());
+        // devuelve copias, no la entidad original
+        assertThat(second.get()).isNotSameAs(patient);
+        verify(patientRepository, times(1)).findByPhoneNumber(patient.getPhoneNumber());
+        verify(patientRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("invalidate obliga a releer el paciente de la BD")
+    void testInvalidateReloads() {
+        //given
+        given(patientRepository.findById(patient.getId())).willReturn(Optional.of(patient));
+        patientCache.findById(patient.getId());
+
+        //when (sin transaccion activa se descarta inmediatamente)
+        patientCache.invalidate(patient.getId());
+        patientCache.findById(patient.getId());
+
+        //then
+        verify(patientRepository, times(2)).findById(patient.getId());
+    }
+}
@@ -0,0 +1,102 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.PatientImportErrorDto;
+import com.SGTPI.SystemProject.dto.PatientImportResultDto;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import com.SGTPI.SystemProject.utils.PhoneNumbers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PatientImportServiceTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private PatientSearchIndex searchIndex;
+    @InjectMocks
+    private PatientImportService importService;
+
+    @Test
+    @DisplayName("importa las filas validas en un batch y reporta las rechazadas con su numero de fila")
+    @SuppressWarnings("unchecked")
+    void testImportCsv() throws Exception {
+        //given
+        String csv = "Nombre;Apellido;Teléfono;Email\n"
+                + "Ana;Perez;11 2233-4455;ana@mail.com\n"
+                + "Juan;;1122334466;\n"
+                + "Luis;Diaz;1122334477;no-es-email\n"
+                + "\"Maria; Jose\";Gomez;1122334455;\n"
+                + "Carla;Lopez;1199887766;\n"
+                + "Pedro;\"Ruiz \"\"el Chino\"\"\";1100001111;\n";
+        given(patientRepository.findExistingPhoneNumbers(any())).willReturn(Set.of("1199887766"));
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+
+        //when
+        PatientImportResultDto result = importService.importPatients("pacientes.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        //then
+        assertThat(result.totalRows()).isEqualTo(6);
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(4);
+        assertThat(result.errors()).extracting(PatientImportErrorDto::row).containsExactly(3, 4, 5, 6);
+        assertThat(result.errors().get(2).message()).contains("fila 2");
+
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture(), anyInt(), any());
+        assertThat(rows.getValue()).hasSize(2);
+        // una consulta de duplicados por bloque y el indice de busqueda se recarga una vez
+        verify(patientRepository, times(1)).findExistingPhoneNumbers(any());
+        verify(searchIndex, times(1)).rebuild();
+    }
+
+    @Test
+    @DisplayName("rechaza archivos sin las columnas obligatorias o con extension desconocida")
+    void testInvalidFiles() {
+        //then
+        assertThatThrownBy(() -> importService.importPatients("pacientes.csv",
+                new ByteArrayInputStream("nombre,email\nAna,ana@mail.com\n".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> importService.importPatients("pacientes.pdf",
+                new ByteArrayInputStream(new byte[0])))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("normaliza el telefono quitando separadores")
+    void testNormalizePhone() {
+        assertThat(PhoneNumbers.normalize(" (011) 2233-44.55 ")).isEqualTo("01122334455");
+        assertThat(PhoneNumbers.normalize(null)).isNull();
+    }
+}
@@ -0,0 +1,69 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class PatientSearchIndexTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+    @InjectMocks
+    private PatientSearchIndex searchIndex;
+
+    @BeforeEach
+    void setup() {
+        given(patientRepository.findAllForIndex()).willReturn(List.of(
+                new PatientDto(1, "José", "Martínez", "jmartinez@mail.com", "11-2233-4455"),
+                new PatientDto(2, "Martina", "Gómez", "mgomez@mail.com", "1199887766"),
+                new PatientDto(3, "Ana", "Perez", "ana.perez@mail.com", "1122001100")
+        ));
+        searchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("busca por prefijo ignorando acentos y mayusculas, apellido antes que nombre")
+    void testSearchByPrefix() {
+        //when
+        List<PatientDto> result = searchIndex.search("MART", 10);
+
+        //then
+        assertThat(result).extracting(PatientDto::id).containsExactly(1, 2);
+        assertThat(searchIndex.search("jose martinez", 10)).extracting(PatientDto::id).containsExactly(1);
+        assertThat(searchIndex.search("gomez", 10)).extracting(PatientDto::id).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("busca por telefono con o sin separadores y por email")
+    void testSearchByPhoneAndEmail() {
+        //then
+        assertThat(searchIndex.search("112233", 10)).extracting(PatientDto::id).containsExactly(1);
+        assertThat(searchIndex.search("11-22", 10)).extracting(PatientDto::id).containsExactly(1, 3);
+        assertThat(searchIndex.search("ana.perez@", 10)).extracting(PatientDto::id).containsExactly(3);
+        assertThat(searchIndex.search("zzz", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("put reemplaza los tokens del paciente modificado")
+    void testPutReplacesPatient() {
+        //when
+        searchIndex.put(new PatientDto(3, "Ana", "Suarez", "ana.suarez@mail.com", "1122001100"));
+
+        //then
+        assertThat(searchIndex.search("perez", 10)).isEmpty();
+        assertThat(searchIndex.search("suarez", 10)).extracting(PatientDto::id).containsExactly(3);
+        assertThat(searchIndex.size()).isEqualTo(3);
+    }
+}
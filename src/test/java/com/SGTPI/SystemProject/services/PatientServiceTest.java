@@ -1,6 +1,7 @@
 package com.SGTPI.SystemProject.services;
 
 import com.SGTPI.SystemProject.dto.PatientDto;
+import com.SGTPI.SystemProject.dto.PatientPatchDto;
 import com.SGTPI.SystemProject.mappers.PatientMapper;
 import com.SGTPI.SystemProject.models.Patient;
 import com.SGTPI.SystemProject.repositories.PatientRepository;
@@ -12,13 +13,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -33,6 +34,10 @@ public class PatientServiceTest {
     private PatientService patientService;
     @Mock
     private PatientMapper patientMapper;
+    @Mock
+    private PatientCache patientCache;
+    @Mock
+    private PatientSearchIndex searchIndex;
 
     private Patient patient;
 
@@ -70,6 +75,23 @@ public class PatientServiceTest {
         verify(patientRepository).save(patient);
     }
 
+    @Test
+    @DisplayName("guarda el telefono sin separadores, igual que la importacion masiva")
+    void testSavePatientNormalizesPhone(){
+        //given
+        PatientDto dto = new PatientDto(null, "pepe", "perez", null, "11-2233 4455");
+        Patient typed = Patient.builder().firstName("pepe").lastName("perez").phoneNumber("11-2233 4455").build();
+        given(patientMapper.dtoToPatient(dto)).willReturn(typed);
+        given(patientRepository.save(typed)).willReturn(typed);
+
+        //when
+        patientService.createPatient(dto);
+
+        //then
+        assertThat(typed.getPhoneNumber()).isEqualTo("1122334455");
+        verify(patientCache).invalidate(null, "1122334455");
+    }
+
     @Test
     @DisplayName("encontrar paciente por id")
     void testFindPatientById(){
@@ -141,7 +163,11 @@ public class PatientServiceTest {
         assertThat(getObservation).isPresent();
         assertThat(setObservation).isNotNull();
         assertThat(getObservation.get()).isEqualTo("test");
+        // las observaciones son un campo diferido: se leen con la consulta escalar, no desde la cache
         verify(patientRepository).getObservations(patient.getPhoneNumber());
+        verify(patientCache, never()).findByPhoneNumber(any());
+        // la actualizacion descarta la entrada del telefono en la cache
+        verify(patientCache).invalidate(null, patient.getPhoneNumber());
     }
 
     @Test
@@ -150,9 +176,8 @@ public class PatientServiceTest {
         //given
         Integer id = patient.getId();
 
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("firstName", "Juan Carlos");
-        updates.put("email", "jucaperez@mail.com");
+        PatientPatchDto patch = new PatientPatchDto(Optional.of("Juan Carlos"), null,
+                Optional.of("jucaperez@mail.com"), null);
 
         Patient updatedPatient = Patient.builder()
                 .id(id)
@@ -167,15 +192,50 @@ public class PatientServiceTest {
 
         //when
         when(patientRepository.findById(anyInt())).thenReturn(Optional.of(patient));
-        when(patientRepository.save(any(Patient.class))).thenReturn(updatedPatient);
+        when(patientRepository.saveAndFlush(any(Patient.class))).thenReturn(updatedPatient);
         when(patientMapper.patientToDto(any(Patient.class))).thenReturn(expectedDto);
 
-        PatientDto result = patientService.partialUpdate(id, updates);
+        PatientDto result = patientService.partialUpdate(id, patch);
 
         //then
         assertThat(result).isEqualTo(expectedDto);
         verify(patientRepository, times(1)).findById(id);
-        verify(patientRepository, times(1)).save(any(Patient.class));
+        verify(patientRepository, times(1)).saveAndFlush(any(Patient.class));
         verify(patientMapper, times(1)).patientToDto(any(Patient.class));
+        // solo cambian los campos presentes en el patch
+        assertThat(patient.getFirstName()).isEqualTo("Juan Carlos");
+        assertThat(patient.getLastName()).isEqualTo("perez");
+    }
+
+    @Test
+    @DisplayName("partialUpdate: un email enviado como null se borra")
+    void testPartialUpdateClearsEmail(){
+        //given
+        PatientPatchDto patch = new PatientPatchDto(null, null, Optional.empty(), null);
+        given(patientRepository.findById(patient.getId())).willReturn(Optional.of(patient));
+        given(patientRepository.saveAndFlush(patient)).willReturn(patient);
+
+        //when
+        patientService.partialUpdate(patient.getId(), patch);
+
+        //then
+        assertThat(patient.getEmail()).isNull();
+        assertThat(patient.getFirstName()).isEqualTo("pepe");
+    }
+
+    @Test
+    @DisplayName("partialUpdate: un telefono de otro paciente se rechaza como dato invalido")
+    void testPartialUpdateDuplicatePhone(){
+        //given
+        PatientPatchDto patch = new PatientPatchDto(null, null, null, Optional.of("1122334455"));
+        given(patientRepository.findById(patient.getId())).willReturn(Optional.of(patient));
+        given(patientRepository.saveAndFlush(patient))
+                .willThrow(new DataIntegrityViolationException("Duplicate entry for key 'phone_number'"));
+
+        //when
+        assertThrows(IllegalArgumentException.class, () -> patientService.partialUpdate(patient.getId(), patch));
+
+        //then
+        verify(patientCache, never()).invalidate(any(), any(String[].class));
     }
 }
@@ -0,0 +1,78 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.Professional;
+import com.SGTPI.SystemProject.repositories.ProfessionalRepository;
+import com.SGTPI.SystemProject.utils.WorkingHours;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProfessionalCacheTest {
+
+    @Mock
+    private ProfessionalRepository professionalRepository;
+    @Mock
+    private EntityManager entityManager;
+    @InjectMocks
+    private ProfessionalCache professionalCache;
+
+    private Professional professional;
+
+    @BeforeEach
+    void setup() {
+        professional = Professional.builder()
+                .id(1)
+                .email("lolo@mail.com")
+                .password("1234")
+                .morningOpeningHours("09:00")
+                .morningClosingHours("12:00")
+                .build();
+    }
+
+    @Test
+    @DisplayName("el profesional se lee una sola vez y las referencias no consultan la BD")
+    void testSnapshotLoadedOnce() {
+        //given
+        given(professionalRepository.findById(1)).willReturn(professional);
+        given(entityManager.getReference(Professional.class, 1)).willReturn(professional);
+
+        //when
+        professionalCache.preload();
+        WorkingHours hours = professionalCache.workingHours();
+        Professional reference = professionalCache.reference();
+
+        //then
+        assertThat(hours.slotTimes()).containsExactly(LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(11, 0));
+        assertThat(reference).isSameAs(professional);
+        assertThat(professionalCache.current().get().email()).isEqualTo("lolo@mail.com");
+        verify(professionalRepository, times(1)).findById(1);
+    }
+
+    @Test
+    @DisplayName("reloadAfterCommit sin transaccion vuelve a leer el profesional")
+    void testReloadAfterCommit() {
+        //given
+        given(professionalRepository.findById(1)).willReturn(professional);
+        professionalCache.preload();
+        professional.setMorningClosingHours("10:00");
+
+        //when
+        professionalCache.reloadAfterCommit();
+
+        //then
+        assertThat(professionalCache.workingHours().slotTimes()).containsExactly(LocalTime.of(9, 0));
+        verify(professionalRepository, times(2)).findById(1);
+    }
+}
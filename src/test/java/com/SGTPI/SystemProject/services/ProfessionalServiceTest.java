@@ -20,6 +20,8 @@ import static org.mockito.internal.verification.VerificationModeFactory.times;
 public class ProfessionalServiceTest {
     @Mock
     private ProfessionalRepository professionalRepository;
+    @Mock
+    private ProfessionalCache professionalCache;
     @InjectMocks
     private ProfessionalService professionalService;
 
@@ -43,6 +45,8 @@ public class ProfessionalServiceTest {
         assertThat(professionalSaved).isNotNull();
         assertThat(professionalSaved).isEqualTo(professional);
         verify(professionalRepository).save(professional);
+        // los datos de referencia cacheados se vuelven a leer
+        verify(professionalCache).reloadAfterCommit();
     }
 
     @Test
@@ -0,0 +1,125 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.Appointment;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.models.Patient;
+import com.SGTPI.SystemProject.models.Reminder;
+import com.SGTPI.SystemProject.models.sendMethod;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import com.SGTPI.SystemProject.repositories.PatientRepository;
+import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//simula dos replicas reclamando recordatorios al mismo tiempo contra la BD de test:
+//mientras la primera mantiene su bloque bloqueado, la segunda debe reclamar otros recordatorios
+@SpringBootTest
+@ActiveProfiles("test")
+public class ReminderClaimConcurrencyTest {
+
+    private static final int REMINDERS = 20;
+    private static final int CLAIM_SIZE = 10;
+
+    @Autowired
+    private ReminderRepository reminderRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // evita enviar correos reales durante la prueba
+    @MockBean
+    private JavaMailSender mailSender;
+
+    @BeforeEach
+    void setup() {
+        reminderRepository.deleteAll();
+        appointmentRepository.deleteAll();
+
+        Patient patient = patientRepository.findByPhoneNumber("1122334455")
+                .orElseGet(() -> patientRepository.save(Patient.builder()
+                        .firstName("Jorge")
+                        .lastName("Diaz")
+                        .email("jdiaz@hotmail.com")
+                        .phoneNumber("1122334455")
+                        .build()));
+
+        LocalDateTime first = LocalDateTime.now().plusDays(30).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        for (int i = 0; i < REMINDERS; i++) {
+            Appointment appointment = appointmentRepository.save(Appointment.builder()
+                    .duration(50)
+                    .date(first.plusHours(i))
+                    .status(AppointmentStatus.CONFIRMADO)
+                    .patient(patient)
+                    .build());
+            reminderRepository.save(Reminder.builder()
+                    .sendTime(LocalDateTime.now().minusMinutes(5))
+                    .method(sendMethod.EMAIL)
+                    .appointment(appointment)
+                    .build());
+        }
+    }
+
+    @Test
+    @DisplayName("dos nodos reclamando a la vez obtienen bloques disjuntos")
+    void testConcurrentClaimsAreDisjoint() throws Exception {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowEnd = now.plusHours(48);
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        Future<List<Integer>> first = executor.submit(() -> transactionTemplate.execute(status -> {
+            List<Integer> claimed = reminderRepository.claimDue(now, windowEnd, 0, CLAIM_SIZE);
+            firstClaimed.countDown();
+            try {
+                // mantiene el bloqueo hasta que la otra replica termine de reclamar
+                secondDone.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return claimed;
+        }));
+        Future<List<Integer>> second = executor.submit(() -> {
+            firstClaimed.await(30, TimeUnit.SECONDS);
+            try {
+                return transactionTemplate.execute(status -> reminderRepository.claimDue(now, windowEnd, 0, CLAIM_SIZE));
+            } finally {
+                secondDone.countDown();
+            }
+        });
+        List<Integer> firstIds = first.get(1, TimeUnit.MINUTES);
+        List<Integer> secondIds = second.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        //then
+        assertThat(firstIds).hasSize(CLAIM_SIZE);
+        assertThat(secondIds).hasSize(CLAIM_SIZE);
+        Set<Integer> all = new HashSet<>(firstIds);
+        all.addAll(secondIds);
+        assertThat(all).hasSize(REMINDERS);
+    }
+}
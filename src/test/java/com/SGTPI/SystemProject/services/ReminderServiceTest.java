@@ -0,0 +1,86 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.models.Appointment;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.models.EmailLane;
+import com.SGTPI.SystemProject.models.Patient;
+import com.SGTPI.SystemProject.models.Reminder;
+import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import com.SGTPI.SystemProject.utils.EmailBatchEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReminderServiceTest {
+
+    @Mock
+    private ReminderRepository reminderRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @InjectMocks
+    private ReminderService reminderService;
+
+    @Test
+    @DisplayName("marca el bloque como enviado con un UPDATE masivo y publica sus correos juntos")
+    void testSendPendingReminders() {
+        //given
+        Patient patient = Patient.builder().id(1).firstName("Jorge").email("jdiaz@hotmail.com").build();
+        Patient withoutEmail = Patient.builder().id(2).firstName("Ana").build();
+        List<Reminder> due = List.of(reminder(5, patient), reminder(9, withoutEmail));
+        given(transactionTemplate.execute(any())).willAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+        given(reminderRepository.claimDue(any(), any(), eq(0), anyInt())).willReturn(List.of(5, 9));
+        given(reminderRepository.findWithAppointmentByIdIn(List.of(5, 9))).willReturn(due);
+
+        //when
+        reminderService.sendPendingReminders();
+
+        //then
+        verify(reminderRepository).markSentByIds(List.of(5, 9));
+        ArgumentCaptor<EmailBatchEvent> batch = ArgumentCaptor.forClass(EmailBatchEvent.class);
+        verify(eventPublisher).publishEvent(batch.capture());
+        assertThat(batch.getValue().getEmails()).hasSize(1);
+        assertThat(batch.getValue().getEmails().get(0).getTo()).isEqualTo("jdiaz@hotmail.com");
+        assertThat(batch.getValue().getEmails().get(0).getLane()).isEqualTo(EmailLane.MASIVO);
+        // un bloque incompleto es el ultimo: no se pide otro
+        verify(reminderRepository, times(1)).claimDue(any(), any(), any(), anyInt());
+        verify(reminderRepository).markStale(any(), any());
+    }
+
+    private Reminder reminder(int id, Patient patient) {
+        Appointment appointment = Appointment.builder()
+                .id(id * 10)
+                .date(LocalDateTime.now().plusDays(5))
+                .status(AppointmentStatus.CONFIRMADO)
+                .patient(patient)
+                .build();
+        return Reminder.builder().id(id).appointment(appointment).build();
+    }
+}
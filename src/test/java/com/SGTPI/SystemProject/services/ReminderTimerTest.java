@@ -0,0 +1,69 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.ReminderScheduleDto;
+import com.SGTPI.SystemProject.repositories.ReminderRepository;
+import com.SGTPI.SystemProject.utils.RemindersDueEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReminderTimerTest {
+
+    @Mock
+    private ReminderRepository reminderRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @InjectMocks
+    private ReminderTimer reminderTimer;
+
+    @AfterEach
+    void tearDown() {
+        reminderTimer.stop();
+    }
+
+    @Test
+    @DisplayName("al arrancar dispara enseguida los recordatorios vencidos y espera a la hora exacta de los demas")
+    void testFiresDueReminders() {
+        //given
+        given(reminderRepository.findPendingUntil(any())).willReturn(List.of(
+                new ReminderScheduleDto(1, 10, LocalDateTime.now().minusMinutes(5)),
+                new ReminderScheduleDto(2, 20, LocalDateTime.now().plusMinutes(30))));
+
+        //when
+        reminderTimer.start();
+
+        //then
+        verify(eventPublisher, timeout(2000).times(1)).publishEvent(any(RemindersDueEvent.class));
+        assertThat(reminderTimer.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("solo guarda los recordatorios dentro del horizonte y los quita al cancelar")
+    void testScheduleAndCancel() {
+        //when
+        reminderTimer.schedule(10, LocalDateTime.now().plusMinutes(30));
+        reminderTimer.schedule(20, LocalDateTime.now().plusHours(ReminderTimer.HORIZON_HOURS + 1));
+        reminderTimer.schedule(10, LocalDateTime.now().plusMinutes(40));
+
+        //then
+        assertThat(reminderTimer.size()).isEqualTo(1);
+        reminderTimer.schedule(10, null);
+        assertThat(reminderTimer.size()).isZero();
+        verify(eventPublisher, never()).publishEvent(any(ApplicationEvent.class));
+    }
+}
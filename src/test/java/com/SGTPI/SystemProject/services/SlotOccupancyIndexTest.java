@@ -0,0 +1,150 @@
+package com.SGTPI.SystemProject.services;
+
+import com.SGTPI.SystemProject.dto.AppointmentSlotDto;
+import com.SGTPI.SystemProject.models.Appointment;
+import com.SGTPI.SystemProject.models.AppointmentStatus;
+import com.SGTPI.SystemProject.repositories.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SlotOccupancyIndexTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private SlotOccupancyIndex slotIndex;
+
+    private final LocalDate day = LocalDate.of(2025, 11, 3);
+
+    @BeforeEach
+    void setup() {
+        slotIndex = new SlotOccupancyIndex(appointmentRepository, 10, 3600);
+    }
+
+    @Test
+    @DisplayName("carga el dia una sola vez y responde desde memoria")
+    void testFindLoadsDayOnce() {
+        //given
+        given(appointmentRepository.findSlotsBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .willReturn(List.of(new AppointmentSlotDto(1, day.atTime(10, 0), AppointmentStatus.CONFIRMADO)));
+
+        //when
+        var confirmed = slotIndex.find(day.atTime(10, 0));
+        var free = slotIndex.find(day.atTime(11, 0));
+
+        //then
+        assertThat(confirmed).isPresent();
+        assertThat(confirmed.get().status()).isEqualTo(AppointmentStatus.CONFIRMADO);
+        assertThat(free).isEmpty();
+        verify(appointmentRepository, times(1)).findSlotsBetween(any(), any());
+    }
+
+    @Test
+    @DisplayName("findConflict ignora el propio turno y las franjas disponibles")
+    void testFindConflict() {
+        //given
+        given(appointmentRepository.findSlotsBetween(any(), any())).willReturn(List.of(
+                new AppointmentSlotDto(1, day.atTime(10, 0), AppointmentStatus.CONFIRMADO),
+                new AppointmentSlotDto(2, day.atTime(11, 0), AppointmentStatus.DISPONIBLE)
+        ));
+
+        //then
+        assertThat(slotIndex.findConflict(day.atTime(10, 0), 5)).isPresent();
+        assertThat(slotIndex.findConflict(day.atTime(10, 0), 1)).isEmpty();
+        assertThat(slotIndex.findConflict(day.atTime(11, 0), 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("recordAfterCommit mueve el turno de franja sin volver a consultar la BD")
+    void testRecordMovesSlot() {
+        //given
+        given(appointmentRepository.findSlotsBetween(any(), any())).willReturn(List.of(
+                new AppointmentSlotDto(1, day.atTime(10, 0), AppointmentStatus.CONFIRMADO)
+        ));
+        slotIndex.find(day.atTime(10, 0));
+
+        Appointment moved = Appointment.builder()
+                .id(1)
+                .date(day.atTime(12, 0))
+                .status(AppointmentStatus.CONFIRMADO)
+                .build();
+
+        //when (sin transaccion activa se aplica inmediatamente)
+        slotIndex.recordAfterCommit(moved, day.atTime(10, 0));
+
+        //then
+        assertThat(slotIndex.find(day.atTime(10, 0))).isEmpty();
+        assertThat(slotIndex.find(day.atTime(12, 0))).isPresent();
+        verify(appointmentRepository, times(1)).findSlotsBetween(any(), any());
+    }
+
+    @Test
+    @DisplayName("un dia ya cargado responde mientras otro dia se esta leyendo de la BD")
+    void testLoadDoesNotBlockCachedDays() throws Exception {
+        //given
+        LocalDate otherDay = day.plusDays(1);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(appointmentRepository.findSlotsBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .willReturn(List.of(new AppointmentSlotDto(1, day.atTime(10, 0), AppointmentStatus.CONFIRMADO)));
+        given(appointmentRepository.findSlotsBetween(otherDay.atStartOfDay(), otherDay.plusDays(1).atStartOfDay()))
+                .willAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    return List.of();
+                });
+        slotIndex.find(day.atTime(10, 0));
+
+        //when
+        CompletableFuture<?> slowLoad = CompletableFuture.runAsync(() -> slotIndex.find(otherDay.atTime(10, 0)));
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+        var cached = CompletableFuture.supplyAsync(() -> slotIndex.find(day.atTime(10, 0)))
+                .get(5, TimeUnit.SECONDS);
+        release.countDown();
+        slowLoad.get(10, TimeUnit.SECONDS);
+
+        //then
+        assertThat(cached).isPresent();
+    }
+
+    @Test
+    @DisplayName("una escritura que llega durante la carga del dia no se pierde")
+    void testWriteDuringLoadIsNotLost() {
+        //given
+        Appointment booked = Appointment.builder()
+                .id(2)
+                .date(day.atTime(11, 0))
+                .status(AppointmentStatus.CONFIRMADO)
+                .build();
+        given(appointmentRepository.findSlotsBetween(any(), any()))
+                .willAnswer(invocation -> {
+                    // el turno se confirma mientras la consulta ya estaba en curso
+                    slotIndex.recordAfterCommit(booked);
+                    return List.of();
+                })
+                .willReturn(List.of(new AppointmentSlotDto(2, day.atTime(11, 0), AppointmentStatus.CONFIRMADO)));
+
+        //when
+        slotIndex.find(day.atTime(11, 0));
+        var afterWrite = slotIndex.find(day.atTime(11, 0));
+
+        //then
+        assertThat(afterWrite).isPresent();
+        verify(appointmentRepository, times(2)).findSlotsBetween(any(), any());
+    }
+}